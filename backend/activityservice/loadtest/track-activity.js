@@ -0,0 +1,47 @@
+// k6 load profile for POST /activities: 1000 concurrent virtual users for 2 minutes.
+//
+// Compare the servlet modes by running the service twice against the same MongoDB/gateway:
+//   SPRING_THREADS_VIRTUAL_ENABLED=false  (platform Tomcat pool, 200 threads)
+//   SPRING_THREADS_VIRTUAL_ENABLED=true   (one virtual thread per request)
+// and then running:
+//   k6 run -e BASE_URL=http://localhost:8083 -e TOKEN=<jwt> -e USER_ID=<id> loadtest/track-activity.js
+// Compare http_reqs (throughput), http_req_duration p95/p99 and http_req_failed between the runs.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8083';
+const TOKEN = __ENV.TOKEN || '';
+const USER_ID = __ENV.USER_ID || 'loadtest-user';
+const TYPES = ['RUNNING', 'WALKING', 'CYCLING', 'SWIMMING', 'WEIGHT_TRAINING', 'YOGA'];
+
+export const options = {
+  scenarios: {
+    burst: {
+      executor: 'constant-vus',
+      vus: Number(__ENV.VUS || 1000),
+      duration: __ENV.DURATION || '2m',
+    },
+  },
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+export default function () {
+  const body = JSON.stringify({
+    type: TYPES[Math.floor(Math.random() * TYPES.length)],
+    duration: 30 + Math.floor(Math.random() * 60),
+    caloriesBurned: 150 + Math.floor(Math.random() * 500),
+    startTime: new Date().toISOString().slice(0, 19),
+  });
+
+  const res = http.post(`${BASE_URL}/activities`, body, {
+    headers: {
+      'Content-Type': 'application/json',
+      'Authorization': `Bearer ${TOKEN}`,
+      'X-User-ID': USER_ID,
+    },
+  });
+
+  check(res, { 'status is 200': (r) => r.status === 200 });
+}
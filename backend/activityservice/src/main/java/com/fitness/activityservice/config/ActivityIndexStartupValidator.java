@@ -0,0 +1,155 @@
+package com.fitness.activityservice.config;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.OutboxEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ensures the indexes declared on {@link Activity} and {@link OutboxEvent} exist, then explains
+ * the hot queries and reports any that would fall back to a collection scan.
+ * ACTIVITY_INDEX_CHECK: {@code warn} (default) logs, {@code strict} fails startup, {@code disabled} skips.
+ */
+@Slf4j
+@Component
+public class ActivityIndexStartupValidator {
+
+    private static final String PROBE_USER_ID = "__index_check__";
+
+    private final MongoTemplate mongoTemplate;
+    private final String mode;
+
+    public ActivityIndexStartupValidator(MongoTemplate mongoTemplate,
+                                         @Value("${ACTIVITY_INDEX_CHECK:warn}") String mode) {
+        this.mongoTemplate = mongoTemplate;
+        this.mode = mode == null ? "warn" : mode.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void validateIndexesOnStartup() {
+        if ("disabled".equals(mode)) {
+            log.info("Activity index validation disabled");
+            return;
+        }
+        boolean strict = "strict".equals(mode);
+
+        log.info("========================================");
+        log.info("Starting Activity Service Index Validation");
+        log.info("========================================");
+
+        List<String> collectionScans;
+        try {
+            ensureIndexes();
+            collectionScans = explainHotQueries();
+        } catch (Exception e) {
+            log.warn("⚠ Activity index validation could not run: {}", e.getMessage());
+            if (strict) {
+                throw new RuntimeException("Activity index validation failed: " + e.getMessage(), e);
+            }
+            return;
+        }
+
+        if (collectionScans.isEmpty()) {
+            log.info("========================================");
+            log.info("✓ SUCCESS: all hot activity queries are index-backed");
+            log.info("========================================");
+            return;
+        }
+
+        String message = "COLLSCAN on activities for: " + String.join(", ", collectionScans);
+        if (strict) {
+            log.error("========================================");
+            log.error("✗ FATAL: {}", message);
+            log.error("========================================");
+            throw new RuntimeException("Activity index validation failed: " + message);
+        }
+        log.warn("========================================");
+        log.warn("⚠ WARNING: {}", message);
+        log.warn("  Every request on these paths scans the whole collection");
+        log.warn("========================================");
+    }
+
+    private void ensureIndexes() {
+        log.info("→ Ensuring activity indexes...");
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> type : List.of(Activity.class, OutboxEvent.class)) {
+            IndexOperations indexOps = mongoTemplate.indexOps(type);
+            resolver.resolveIndexFor(type).forEach(indexOps::createIndex);
+            log.info("  ✓ {}: {} indexes present", mongoTemplate.getCollectionName(type), indexOps.getIndexInfo().size());
+        }
+    }
+
+    private List<String> explainHotQueries() {
+        Sort newestFirst = Sort.by(Sort.Order.desc("startTime"), Sort.Order.desc("id"));
+        List<String> collectionScans = new ArrayList<>();
+
+        check("user activity listing", Query.query(Criteria.where("userId").is(PROBE_USER_ID)).with(newestFirst), collectionScans);
+        check("admin activity paging", new Query().with(newestFirst).limit(50), collectionScans);
+        check("admin time-range stats", Query.query(Criteria.where("createdAt").gte(LocalDateTime.now().minusDays(1))), collectionScans);
+        return collectionScans;
+    }
+
+    private void check(String name, Query query, List<String> collectionScans) {
+        log.info("→ Explaining {}...", name);
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getPersistentEntity(Activity.class);
+        Document find = new Document("find", mongoTemplate.getCollectionName(Activity.class))
+                .append("filter", mapper.getMappedObject(query.getQueryObject(), entity))
+                .append("sort", mapper.getMappedSort(query.getSortObject(), entity));
+        if (query.getLimit() > 0) {
+            find.append("limit", query.getLimit());
+        }
+
+        Document explain = mongoTemplate.getDb().runCommand(
+                new Document("explain", find).append("verbosity", "queryPlanner"));
+        Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+
+        if (containsStage(winningPlan, "COLLSCAN")) {
+            log.warn("  ⚠ {} uses COLLSCAN", name);
+            collectionScans.add(name);
+        } else {
+            log.info("  ✓ {} is index-backed", name);
+        }
+    }
+
+    private static boolean containsStage(Object plan, String stage) {
+        if (plan instanceof Document doc) {
+            if (stage.equals(doc.getString("stage"))) {
+                return true;
+            }
+            // Classic plans nest via inputStage/inputStages; SBE plans wrap the tree in queryPlan
+            for (Object child : doc.values()) {
+                if (containsStage(child, stage)) {
+                    return true;
+                }
+            }
+        } else if (plan instanceof List<?> list) {
+            for (Object child : list) {
+                if (containsStage(child, stage)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
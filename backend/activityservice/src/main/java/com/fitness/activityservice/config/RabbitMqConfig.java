@@ -1,4 +1,3 @@
-
 package com.fitness.activityservice.config;
 
 import org.slf4j.Logger;
@@ -11,6 +10,8 @@ import org.springframework.core.env.Environment;
 @Configuration
 public class RabbitMqConfig {
 
+    public static final String ACTIVITY_CREATED_ROUTING_KEY = "activity.created";
+
     private static final Logger log = LoggerFactory.getLogger(RabbitMqConfig.class);
     private final Environment env;
 
@@ -34,6 +35,6 @@ public class RabbitMqConfig {
     public Binding activityBinding(Queue activityQueue, DirectExchange activityExchange) {
         return BindingBuilder.bind(activityQueue)
                 .to(activityExchange)
-                .with("activity.created");
+                .with(ACTIVITY_CREATED_ROUTING_KEY);
     }
-}
\ No newline at end of file
+}
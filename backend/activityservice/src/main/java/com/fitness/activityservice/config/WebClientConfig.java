@@ -1,18 +1,31 @@
 package com.fitness.activityservice.config;
 
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.client.HttpClient;
+
 @Configuration
 public class WebClientConfig {
 
     // Direct URL for local/dev to avoid service discovery dependency
     @Bean
-    public WebClient apiGatewayWebClient(@Value("${API_GATEWAY_URL:https://fittrack-gateway.onrender.com}") String apiGatewayUrl) {
+    public WebClient apiGatewayWebClient(@Value("${API_GATEWAY_URL:https://fittrack-gateway.onrender.com}") String apiGatewayUrl,
+                                         @Value("${API_GATEWAY_CONNECT_TIMEOUT:2s}") Duration connectTimeout,
+                                         @Value("${API_GATEWAY_RESPONSE_TIMEOUT:5s}") Duration responseTimeout) {
+        // Bounded so a slow gateway cannot hold request threads indefinitely
+        HttpClient httpClient = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout);
         return WebClient.builder()
                 .baseUrl(apiGatewayUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .build();
     }
 }
@@ -1,9 +1,12 @@
 package com.fitness.activityservice.controller;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,11 +15,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fitness.activityservice.dto.ActivityBatchResponse;
+import com.fitness.activityservice.dto.ActivityPageResponse;
 import com.fitness.activityservice.dto.ActivityRequest;
 import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.dto.ActivityStatsResponse;
+import com.fitness.activityservice.dto.AdminActivityStatsResponse;
+import com.fitness.activityservice.model.ActivityType;
 import com.fitness.activityservice.service.ActivityService;
+import com.fitness.activityservice.service.ActivityStatsService;
+import com.fitness.activityservice.service.UserValidationService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -26,8 +38,11 @@ import lombok.RequiredArgsConstructor;
 public class ActivityController {
 
     private static final String B64_PREFIX = "b64_";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     private final ActivityService activityService;
+    private final ActivityStatsService activityStatsService;
+    private final UserValidationService userValidationService;
 
     @PostMapping
     public ResponseEntity<ActivityResponse> trackActivity(@RequestBody ActivityRequest request, @RequestHeader("X-User-ID") String userId){
@@ -38,11 +53,29 @@ public class ActivityController {
         return ResponseEntity.ok(activityService.trackActivity(request));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<ActivityBatchResponse> trackActivities(@RequestBody List<ActivityRequest> requests, @RequestHeader("X-User-ID") String userId){
+        return ResponseEntity.ok(activityService.trackActivities(decodeUserIdHeader(userId), requests));
+    }
+
     @GetMapping
     public ResponseEntity<List<ActivityResponse>> getUserActivities(@RequestHeader("X-User-ID") String userId){
         return ResponseEntity.ok(activityService.getUserActivities(decodeUserIdHeader(userId)));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<ActivityPageResponse> getUserActivitiesPage(@RequestHeader("X-User-ID") String userId,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit){
+        return ResponseEntity.ok(activityService.getUserActivitiesPage(decodeUserIdHeader(userId), cursor, limit));
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamUserActivities(@RequestHeader("X-User-ID") String userId){
+        String decodedUserId = decodeUserIdHeader(userId);
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(out -> activityService.streamUserActivities(decodedUserId, out));
+    }
 
     @GetMapping("/{activityId}")
     public ResponseEntity<ActivityResponse> getActivity(@PathVariable String activityId){
@@ -50,21 +83,8 @@ public class ActivityController {
     }
 
     @GetMapping("/stats")
-    public ResponseEntity<?> getUserStats(@RequestHeader("X-User-ID") String userId){
-        userId = decodeUserIdHeader(userId);
-        List<ActivityResponse> activities = activityService.getUserActivities(userId);
-        
-        int count = activities.size();
-        int totalDuration = activities.stream().mapToInt(ActivityResponse::getDuration).sum();
-        int totalCalories = activities.stream().mapToInt(ActivityResponse::getCaloriesBurned).sum();
-        double avgCalories = count > 0 ? (double) totalCalories / count : 0;
-        
-        return ResponseEntity.ok(new java.util.HashMap<String, Object>() {{
-            put("count", count);
-            put("totalDurationMinutes", totalDuration);
-            put("totalCaloriesBurned", totalCalories);
-            put("avgCaloriesPerActivity", avgCalories);
-        }});
+    public ResponseEntity<ActivityStatsResponse> getUserStats(@RequestHeader("X-User-ID") String userId){
+        return ResponseEntity.ok(activityStatsService.getStats(decodeUserIdHeader(userId)));
     }
 
     @DeleteMapping("/{activityId}")
@@ -106,21 +126,25 @@ public class ActivityController {
         return ResponseEntity.ok(activityService.getAllActivities());
     }
 
+    @GetMapping("/admin/activities/page")
+    public ResponseEntity<ActivityPageResponse> getAllActivitiesPage(
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit){
+        return ResponseEntity.ok(activityService.getAllActivitiesPage(cursor, limit));
+    }
+
+    @GetMapping("/admin/activities/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllActivities(){
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(activityService::streamAllActivities);
+    }
+
     @GetMapping("/admin/activities/stats")
-    public ResponseEntity<?> getAdminStats(){
-        List<ActivityResponse> activities = activityService.getAllActivities();
-        
-        int totalActivities = activities.size();
-        int totalDuration = activities.stream().mapToInt(ActivityResponse::getDuration).sum();
-        int totalCalories = activities.stream().mapToInt(ActivityResponse::getCaloriesBurned).sum();
-        long uniqueUsers = activities.stream().map(ActivityResponse::getUserId).distinct().count();
-        
-        return ResponseEntity.ok(new java.util.HashMap<String, Object>() {{
-            put("totalActivities", totalActivities);
-            put("totalDurationMinutes", totalDuration);
-            put("totalCaloriesBurned", totalCalories);
-            put("uniqueUsers", uniqueUsers);
-        }});
+    public ResponseEntity<AdminActivityStatsResponse> getAdminStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) ActivityType type){
+        return ResponseEntity.ok(activityService.getAdminStats(from, to, type));
     }
 
     @DeleteMapping("/admin/activities/{activityId}")
@@ -128,4 +152,17 @@ public class ActivityController {
         activityService.adminDeleteActivity(activityId);
         return ResponseEntity.ok().build();
     }
+
+    // Called on user deactivation/deletion so the cached validation result is not served
+    @DeleteMapping("/admin/user-validation-cache/{userId}")
+    public ResponseEntity<Void> evictUserValidation(@PathVariable String userId){
+        userValidationService.evict(decodeUserIdHeader(userId));
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/admin/user-validation-cache")
+    public ResponseEntity<Void> evictAllUserValidations(){
+        userValidationService.evictAll();
+        return ResponseEntity.noContent().build();
+    }
 }
\ No newline at end of file
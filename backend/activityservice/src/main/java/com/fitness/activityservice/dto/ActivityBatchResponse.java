@@ -0,0 +1,27 @@
+package com.fitness.activityservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityBatchResponse {
+    private int created;
+    private int failed;
+    // One entry per request item, in request order
+    private List<ItemResult> results;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ItemResult {
+        private int index;
+        private boolean success;
+        private ActivityResponse activity;
+        private String error;
+    }
+}
@@ -0,0 +1,15 @@
+package com.fitness.activityservice.dto;
+
+import com.fitness.activityservice.model.UserActivityStats;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class ActivityStatsResponse {
+    private long count;
+    private long totalDurationMinutes;
+    private long totalCaloriesBurned;
+    private double avgCaloriesPerActivity;
+    private Map<String, UserActivityStats.TypeStats> byType;
+}
@@ -0,0 +1,11 @@
+package com.fitness.activityservice.dto;
+
+import lombok.Data;
+
+@Data
+public class AdminActivityStatsResponse {
+    private long totalActivities;
+    private long totalDurationMinutes;
+    private long totalCaloriesBurned;
+    private long uniqueUsers;
+}
@@ -7,6 +7,9 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -14,6 +17,12 @@ import java.time.LocalDateTime;
 import java.util.Map;
 
 @Document(collection = "activities")
+@CompoundIndexes({
+        // Per-user listing, paging and streaming; _id is the keyset tie-breaker
+        @CompoundIndex(name = "userId_startTime_id", def = "{'userId': 1, 'startTime': -1, '_id': -1}"),
+        // Admin paging across all users
+        @CompoundIndex(name = "startTime_id", def = "{'startTime': -1, '_id': -1}")
+})
 @Data
 @Builder
 @AllArgsConstructor
@@ -31,6 +40,7 @@ public class Activity {
     private Map<String, Object> additionalMetrics;
 
     @CreatedDate
+    @Indexed(name = "createdAt")
     private LocalDateTime createdAt;
 
     @LastModifiedDate
@@ -0,0 +1,53 @@
+package com.fitness.activityservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event waiting to be published to RabbitMQ, written next to the activity that produced it
+ * and drained by {@code OutboxRelay}.
+ */
+@Document(collection = "activity_outbox")
+@CompoundIndex(name = "status_createdAt", def = "{'status': 1, 'createdAt': 1}")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxEvent {
+    @Id
+    private String id;
+    private String aggregateId;
+    private String routingKey;
+    // Serialized JSON message body
+    private String payload;
+    private OutboxStatus status;
+    private int attempts;
+    private String lastError;
+    // Earliest time a failed event may be retried
+    private LocalDateTime nextAttemptAt;
+
+    // Lease held by the relay instance currently publishing this event
+    private String lockedBy;
+    private LocalDateTime lockedUntil;
+
+    private LocalDateTime createdAt;
+
+    // Sent events are purged by MongoDB a week after publishing
+    @Indexed(name = "sentAt_ttl", expireAfter = "7d")
+    private LocalDateTime sentAt;
+
+    public enum OutboxStatus {
+        PENDING,
+        SENT,
+        // Gave up after the maximum number of attempts; kept for inspection and manual replay
+        FAILED
+    }
+}
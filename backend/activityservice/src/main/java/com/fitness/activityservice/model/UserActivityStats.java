@@ -0,0 +1,44 @@
+package com.fitness.activityservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Running totals per user, kept in step with the activities collection by $inc upserts
+ * so the stats endpoint never has to scan a user's history.
+ */
+@Document(collection = "user_activity_stats")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserActivityStats {
+    @Id
+    private String userId;
+    private long count;
+    private long totalDuration;
+    private long totalCalories;
+
+    // Keyed by ActivityType name
+    private Map<String, TypeStats> byType;
+
+    private LocalDateTime updatedAt;
+    private LocalDateTime rebuiltAt;
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class TypeStats {
+        private long count;
+        private long totalDuration;
+        private long totalCalories;
+    }
+}
@@ -8,5 +8,5 @@ import java.util.List;
 
 @Repository
 public interface ActivityRepository extends MongoRepository<Activity, String> {
-    List<Activity> findByUserId(String userId);
+    List<Activity> findByUserIdOrderByStartTimeDesc(String userId);
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.fitness.activityservice.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.activityservice.config.RabbitMqConfig;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.OutboxEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes activity.created events to the outbox collection. With ACTIVITY_OUTBOX_TRANSACTIONS=true
+ * the activity and its event commit atomically; otherwise the event is written right after the
+ * activity, and if that fails the activities are deleted again and the error is rethrown, so an
+ * activity is never stored without its event.
+ */
+@Service
+@Slf4j
+public class ActivityOutboxService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public ActivityOutboxService(MongoTemplate mongoTemplate, ObjectMapper objectMapper,
+                                 ObjectProvider<MongoTransactionManager> transactionManager) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        MongoTransactionManager txManager = transactionManager.getIfAvailable();
+        this.transactionTemplate = txManager == null ? null : new TransactionTemplate(txManager);
+    }
+
+    public <T> T inTransaction(Supplier<T> work) {
+        return transactionTemplate == null ? work.get() : transactionTemplate.execute(status -> work.get());
+    }
+
+    public void activitiesCreated(List<Activity> activities) {
+        if (activities == null || activities.isEmpty()) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> events = activities.stream()
+                    .map(activity -> OutboxEvent.builder()
+                            .aggregateId(activity.getId())
+                            .routingKey(RabbitMqConfig.ACTIVITY_CREATED_ROUTING_KEY)
+                            .payload(toJson(activity))
+                            .status(OutboxEvent.OutboxStatus.PENDING)
+                            .createdAt(now)
+                            .build())
+                    .toList();
+            mongoTemplate.insert(events, OutboxEvent.class);
+        } catch (RuntimeException e) {
+            if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                // No transaction to roll back: undo the activity writes by hand
+                removeActivities(activities, e);
+            }
+            throw e;
+        }
+    }
+
+    private void removeActivities(List<Activity> activities, RuntimeException cause) {
+        List<String> ids = activities.stream().map(Activity::getId).toList();
+        log.error("Failed to write outbox events for activities {}; removing them", ids, cause);
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), Activity.class);
+        } catch (RuntimeException e) {
+            log.error("Failed to remove activities {} after outbox failure; they have no activity.created event", ids, e);
+            cause.addSuppressed(e);
+        }
+    }
+
+    private String toJson(Activity activity) {
+        try {
+            return objectMapper.writeValueAsString(activity);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize activity " + activity.getId(), e);
+        }
+    }
+}
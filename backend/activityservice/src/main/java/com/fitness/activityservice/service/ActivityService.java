@@ -1,13 +1,41 @@
 package com.fitness.activityservice.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.activityservice.dto.ActivityBatchResponse;
+import com.fitness.activityservice.dto.ActivityPageResponse;
 import com.fitness.activityservice.dto.ActivityRequest;
 import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.dto.AdminActivityStatsResponse;
 import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityType;
 import com.fitness.activityservice.repository.ActivityRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -18,9 +46,18 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ActivityService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int STREAM_FLUSH_EVERY = 100;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("startTime"), Sort.Order.desc("id"));
+
     private final ActivityRepository activityRepository;
     private final UserValidationService userValidationService;
-    // RabbitMQ integration is optional; keep config keys for future use
+    private final ActivityStatsService activityStatsService;
+    private final ActivityOutboxService activityOutboxService;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
 
     @SuppressWarnings("null")
     public ActivityResponse trackActivity(ActivityRequest request) {
@@ -41,13 +78,104 @@ public class ActivityService {
                 .additionalMetrics(request.getAdditionalMetrics())
                 .build();
 
-        Activity savedActivity = activityRepository.save(activity);
-
-        // (Optional) publish to RabbitMQ for downstream processing if enabled by configuration
+        // The activity.created event goes to the outbox and is published by OutboxRelay, off the request path
+        Activity savedActivity = activityOutboxService.inTransaction(() -> {
+            Activity saved = activityRepository.save(activity);
+            activityOutboxService.activitiesCreated(List.of(saved));
+            return saved;
+        });
+        activityStatsService.recordActivity(savedActivity);
 
         return mapToResponse(savedActivity);
     }
 
+    /**
+     * Inserts many activities for one user with a single unordered bulk write. Rows that fail
+     * validation or the write itself are reported per item without affecting the rest.
+     */
+    public ActivityBatchResponse trackActivities(String userId, List<ActivityRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one activity");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch size exceeds maximum of " + MAX_BATCH_SIZE);
+        }
+
+        if (!userValidationService.validateUser(userId)) {
+            log.warn("User not found or validation failed, continuing: {}", userId);
+        }
+
+        Map<Integer, ActivityBatchResponse.ItemResult> results = new TreeMap<>();
+        List<Integer> pendingIndexes = new ArrayList<>();
+        List<Activity> pending = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < requests.size(); i++) {
+            ActivityRequest request = requests.get(i);
+            String error = validateBatchItem(request);
+            if (error != null) {
+                results.put(i, new ActivityBatchResponse.ItemResult(i, false, null, error));
+                continue;
+            }
+            // Ids and audit dates are assigned here because bulk inserts do not write them back
+            pending.add(Activity.builder()
+                    .id(new ObjectId().toHexString())
+                    .userId(userId)
+                    .type(request.getType())
+                    .duration(request.getDuration())
+                    .caloriesBurned(request.getCaloriesBurned())
+                    .startTime(request.getStartTime())
+                    .additionalMetrics(request.getAdditionalMetrics())
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+            pendingIndexes.add(i);
+        }
+
+        Map<Integer, String> writeErrors = new TreeMap<>();
+        if (!pending.isEmpty()) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Activity.class)
+                        .insert(pending)
+                        .execute();
+            } catch (BulkOperationException e) {
+                e.getErrors().forEach(err -> writeErrors.put(err.getIndex(), err.getMessage()));
+                log.warn("Batch insert for user {}: {} of {} writes failed", userId, writeErrors.size(), pending.size());
+            }
+        }
+
+        List<Activity> saved = new ArrayList<>();
+        for (int j = 0; j < pending.size(); j++) {
+            int index = pendingIndexes.get(j);
+            String error = writeErrors.get(j);
+            if (error != null) {
+                results.put(index, new ActivityBatchResponse.ItemResult(index, false, null, error));
+            } else {
+                saved.add(pending.get(j));
+                results.put(index, new ActivityBatchResponse.ItemResult(index, true, mapToResponse(pending.get(j)), null));
+            }
+        }
+        // Not transactional: a write error inside a transaction would abort the rows that did succeed.
+        // If the events cannot be written the saved rows are removed again and the request fails.
+        activityOutboxService.activitiesCreated(saved);
+        activityStatsService.recordActivities(userId, saved);
+
+        return new ActivityBatchResponse(saved.size(), requests.size() - saved.size(), new ArrayList<>(results.values()));
+    }
+
+    private static String validateBatchItem(ActivityRequest request) {
+        if (request == null) {
+            return "Activity is empty";
+        }
+        if (request.getDuration() != null && request.getDuration() < 0) {
+            return "duration must not be negative";
+        }
+        if (request.getCaloriesBurned() != null && request.getCaloriesBurned() < 0) {
+            return "caloriesBurned must not be negative";
+        }
+        return null;
+    }
+
     private ActivityResponse mapToResponse(Activity activity){
         ActivityResponse response = new ActivityResponse();
         response.setId(activity.getId());
@@ -63,12 +191,121 @@ public class ActivityService {
     }
 
     public List<ActivityResponse> getUserActivities(String userId) {
-        List<Activity> activities = activityRepository.findByUserId(userId);
+        List<Activity> activities = activityRepository.findByUserIdOrderByStartTimeDesc(userId);
         return activities.stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * One page of a user's activities, newest first. {@code cursor} is the {@code nextCursor}
+     * of the previous page; omit it for the first page.
+     */
+    public ActivityPageResponse getUserActivitiesPage(String userId, String cursor, Integer limit) {
+        return findPage(Criteria.where("userId").is(userId), cursor, limit);
+    }
+
+    public ActivityPageResponse getAllActivitiesPage(String cursor, Integer limit) {
+        return findPage(null, cursor, limit);
+    }
+
+    /**
+     * Writes the user's activities as newline-delimited JSON straight off a Mongo cursor,
+     * so neither the full list nor the full response body is ever held in memory.
+     */
+    public void streamUserActivities(String userId, OutputStream out) throws IOException {
+        streamActivities(Query.query(Criteria.where("userId").is(userId)), out);
+    }
+
+    public void streamAllActivities(OutputStream out) throws IOException {
+        streamActivities(new Query(), out);
+    }
+
+    private ActivityPageResponse findPage(Criteria filter, String cursor, Integer limit) {
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter != null) {
+            criteria.add(filter);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            criteria.add(afterCursor(cursor));
+        }
+        Query query = criteria.isEmpty() ? new Query() : Query.query(new Criteria().andOperator(criteria));
+        // One extra row tells us whether another page exists without a count query
+        query.with(NEWEST_FIRST).limit(size + 1);
+
+        List<Activity> rows = mongoTemplate.find(query, Activity.class);
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = encodeCursor(rows.get(size - 1));
+        }
+        return new ActivityPageResponse(rows.stream().map(this::mapToResponse).collect(Collectors.toList()), nextCursor);
+    }
+
+    private void streamActivities(Query query, OutputStream out) throws IOException {
+        query.with(NEWEST_FIRST);
+        try (Stream<Activity> activities = mongoTemplate.stream(query, Activity.class)) {
+            long written = 0;
+            for (Iterator<Activity> it = activities.iterator(); it.hasNext(); ) {
+                out.write(objectMapper.writeValueAsBytes(mapToResponse(it.next())));
+                out.write('\n');
+                // Flush the first row immediately for time-to-first-byte, then in batches
+                if (++written % STREAM_FLUSH_EVERY == 1) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Rows strictly after the cursor position in (startTime desc, id desc) order. MongoDB sorts
+     * a missing startTime below every date, so those rows come last.
+     */
+    private static Criteria afterCursor(String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalidCursor();
+        }
+        int sep = decoded.indexOf('|');
+        if (sep < 0 || sep == decoded.length() - 1) {
+            throw invalidCursor();
+        }
+        String id = decoded.substring(sep + 1);
+        if (sep == 0) {
+            return new Criteria().andOperator(
+                    Criteria.where("startTime").is(null),
+                    Criteria.where("id").lt(id));
+        }
+
+        LocalDateTime startTime;
+        try {
+            startTime = LocalDateTime.parse(decoded.substring(0, sep));
+        } catch (RuntimeException e) {
+            throw invalidCursor();
+        }
+        return new Criteria().orOperator(
+                Criteria.where("startTime").lt(startTime),
+                new Criteria().andOperator(
+                        Criteria.where("startTime").is(startTime),
+                        Criteria.where("id").lt(id)),
+                Criteria.where("startTime").is(null));
+    }
+
+    // A cursor comes straight from the client, so a bad one is the caller's error, not a 500
+    private static ResponseStatusException invalidCursor() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+
+    private static String encodeCursor(Activity last) {
+        String value = (last.getStartTime() == null ? "" : last.getStartTime().toString()) + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
     @SuppressWarnings("null")
     public ActivityResponse getActivityById(String activityId) {
         if (activityId == null) {
@@ -92,7 +329,10 @@ public class ActivityService {
             throw new RuntimeException("Unauthorized: Activity does not belong to user");
         }
         
-        activityRepository.deleteById(activityId);
+        // findAndRemove so that only the request that actually removed the document adjusts the stats
+        Activity removed = mongoTemplate.findAndRemove(
+                Query.query(Criteria.where("id").is(activityId).and("userId").is(userId)), Activity.class);
+        activityStatsService.removeActivity(removed);
         log.info("Activity deleted: {} by user: {}", activityId, userId);
     }
 
@@ -104,12 +344,72 @@ public class ActivityService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Totals across all users computed inside MongoDB; only one small result document comes back.
+     * The optional window applies to {@code createdAt}, bounds inclusive.
+     */
+    public AdminActivityStatsResponse getAdminStats(LocalDateTime from, LocalDateTime to, ActivityType type) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+
+        List<Criteria> filters = new ArrayList<>();
+        if (from != null) {
+            filters.add(Criteria.where("createdAt").gte(from));
+        }
+        if (to != null) {
+            filters.add(Criteria.where("createdAt").lte(to));
+        }
+        if (type != null) {
+            filters.add(Criteria.where("type").is(type));
+        }
+
+        FacetOperation facet = Aggregation.facet(
+                        Aggregation.group()
+                                .count().as("totalActivities")
+                                .sum("duration").as("totalDurationMinutes")
+                                .sum("caloriesBurned").as("totalCaloriesBurned"))
+                .as("totals")
+                .and(Aggregation.group("userId"), Aggregation.count().as("uniqueUsers"))
+                .as("users");
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (!filters.isEmpty()) {
+            stages.add(Aggregation.match(new Criteria().andOperator(filters)));
+        }
+        stages.add(facet);
+
+        Document result = mongoTemplate.aggregate(Aggregation.newAggregation(stages), Activity.class, Document.class)
+                .getUniqueMappedResult();
+
+        AdminActivityStatsResponse response = new AdminActivityStatsResponse();
+        Document totals = firstFacetRow(result, "totals");
+        response.setTotalActivities(toLong(totals.get("totalActivities")));
+        response.setTotalDurationMinutes(toLong(totals.get("totalDurationMinutes")));
+        response.setTotalCaloriesBurned(toLong(totals.get("totalCaloriesBurned")));
+        response.setUniqueUsers(toLong(firstFacetRow(result, "users").get("uniqueUsers")));
+        return response;
+    }
+
+    private static Document firstFacetRow(Document result, String facet) {
+        if (result == null) {
+            return new Document();
+        }
+        List<Document> rows = result.getList(facet, Document.class);
+        return rows == null || rows.isEmpty() ? new Document() : rows.get(0);
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number n ? n.longValue() : 0L;
+    }
+
     @SuppressWarnings("null")
     public void adminDeleteActivity(String activityId) {
         if (activityId == null) {
             throw new IllegalArgumentException("Activity ID cannot be null");
         }
-        activityRepository.deleteById(activityId);
+        Activity removed = mongoTemplate.findAndRemove(Query.query(Criteria.where("id").is(activityId)), Activity.class);
+        activityStatsService.removeActivity(removed);
         log.info("Activity deleted by admin: {}", activityId);
     }
 }
\ No newline at end of file
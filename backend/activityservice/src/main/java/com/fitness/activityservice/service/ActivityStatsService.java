@@ -0,0 +1,253 @@
+package com.fitness.activityservice.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fitness.activityservice.dto.ActivityStatsResponse;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.model.UserActivityStats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintains {@link UserActivityStats} incrementally on every write and reconciles it
+ * against the activities collection on a schedule.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityStatsService {
+
+    private static final String UNTYPED = ActivityType.OTHER.name();
+
+    private final MongoTemplate mongoTemplate;
+
+    public ActivityStatsResponse getStats(String userId) {
+        UserActivityStats stats = userId == null ? null : mongoTemplate.findById(userId, UserActivityStats.class);
+        if (stats == null) {
+            // First read for a user whose history predates the aggregate
+            stats = rebuildUser(userId);
+        }
+        return toResponse(stats);
+    }
+
+    public void recordActivity(Activity activity) {
+        if (activity == null || activity.getUserId() == null) {
+            return;
+        }
+        try {
+            long matched = mongoTemplate.updateFirst(byUser(activity.getUserId()), delta(activity, 1), UserActivityStats.class)
+                    .getMatchedCount();
+            if (matched == 0) {
+                // No aggregate yet: build it from the collection, which already includes this activity.
+                rebuildUser(activity.getUserId());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to update stats for user {} (will be reconciled by rebuild): {}", activity.getUserId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Applies a whole batch for one user as a single update instead of one per activity.
+     */
+    public void recordActivities(String userId, List<Activity> activities) {
+        if (userId == null || activities == null || activities.isEmpty()) {
+            return;
+        }
+        try {
+            Update update = new Update().set("updatedAt", LocalDateTime.now());
+            Map<String, long[]> totals = new HashMap<>();
+            for (Activity activity : activities) {
+                accumulate(totals, "", activity);
+                accumulate(totals, "byType." + (activity.getType() == null ? UNTYPED : activity.getType().name()) + ".", activity);
+            }
+            totals.forEach((prefix, t) -> update
+                    .inc(prefix + "count", t[0])
+                    .inc(prefix + "totalDuration", t[1])
+                    .inc(prefix + "totalCalories", t[2]));
+
+            long matched = mongoTemplate.updateFirst(byUser(userId), update, UserActivityStats.class).getMatchedCount();
+            if (matched == 0) {
+                rebuildUser(userId);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to update stats for user {} (will be reconciled by rebuild): {}", userId, e.getMessage());
+        }
+    }
+
+    private static void accumulate(Map<String, long[]> totals, String prefix, Activity activity) {
+        long[] t = totals.computeIfAbsent(prefix, k -> new long[3]);
+        t[0]++;
+        t[1] += activity.getDuration() == null ? 0 : activity.getDuration();
+        t[2] += activity.getCaloriesBurned() == null ? 0 : activity.getCaloriesBurned();
+    }
+
+    public void removeActivity(Activity activity) {
+        if (activity == null || activity.getUserId() == null) {
+            return;
+        }
+        try {
+            // No upsert: a missing aggregate is rebuilt lazily on the next read.
+            mongoTemplate.updateFirst(byUser(activity.getUserId()), delta(activity, -1), UserActivityStats.class);
+        } catch (Exception e) {
+            log.warn("Failed to update stats for user {} (will be reconciled by rebuild): {}", activity.getUserId(), e.getMessage());
+        }
+    }
+
+    public UserActivityStats rebuildUser(String userId) {
+        UserActivityStats stats = emptyStats(userId);
+        if (userId == null) {
+            return stats;
+        }
+        Aggregation aggregation = groupByUserAndType(Aggregation.match(Criteria.where("userId").is(userId)));
+        try (Stream<Document> rows = mongoTemplate.aggregateStream(aggregation, Activity.class, Document.class)) {
+            rows.forEach(row -> addGroupRow(stats, row));
+        }
+        if (stats.getCount() > 0) {
+            stats.setRebuiltAt(LocalDateTime.now());
+            mongoTemplate.save(stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Recomputes every user's aggregate from the activities collection. Increments that race
+     * with a rebuild may be lost or doubled; the next run corrects them.
+     */
+    @Scheduled(cron = "${ACTIVITY_STATS_REBUILD_CRON:0 30 3 * * *}")
+    public void rebuildAll() {
+        LocalDateTime runStartedAt = LocalDateTime.now();
+        long users = 0;
+        log.info("Activity stats rebuild started");
+
+        try (Stream<Document> rows = mongoTemplate.aggregateStream(groupByUserAndType(null), Activity.class, Document.class)) {
+            UserActivityStats current = null;
+            for (Iterator<Document> it = rows.iterator(); it.hasNext(); ) {
+                Document row = it.next();
+                String userId = row.get("_id", Document.class).getString("userId");
+                if (userId == null) {
+                    continue;
+                }
+                if (current == null || !Objects.equals(current.getUserId(), userId)) {
+                    if (current != null) {
+                        saveRebuilt(current, runStartedAt);
+                        users++;
+                    }
+                    current = emptyStats(userId);
+                }
+                addGroupRow(current, row);
+            }
+            if (current != null) {
+                saveRebuilt(current, runStartedAt);
+                users++;
+            }
+        } catch (Exception e) {
+            log.error("Activity stats rebuild failed after {} users", users, e);
+            return;
+        }
+
+        // Aggregates neither rebuilt nor touched during this run belong to users with no activities left.
+        Query stale = Query.query(new Criteria().andOperator(
+                Criteria.where("updatedAt").lt(runStartedAt),
+                new Criteria().orOperator(
+                        Criteria.where("rebuiltAt").lt(runStartedAt),
+                        Criteria.where("rebuiltAt").exists(false))));
+        long removed = mongoTemplate.remove(stale, UserActivityStats.class).getDeletedCount();
+        log.info("Activity stats rebuild finished: users={} staleRemoved={}", users, removed);
+    }
+
+    private static Aggregation groupByUserAndType(AggregationOperation match) {
+        AggregationOperation group = Aggregation.group("userId", "type")
+                .count().as("count")
+                .sum("duration").as("totalDuration")
+                .sum("caloriesBurned").as("totalCalories");
+        AggregationOperation sort = Aggregation.sort(Sort.Direction.ASC, "userId");
+        Aggregation aggregation = match == null
+                ? Aggregation.newAggregation(group, sort)
+                : Aggregation.newAggregation(match, group, sort);
+        return aggregation.withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+    }
+
+    private static void addGroupRow(UserActivityStats stats, Document row) {
+        Object type = row.get("_id", Document.class).get("type");
+        long count = toLong(row.get("count"));
+        long duration = toLong(row.get("totalDuration"));
+        long calories = toLong(row.get("totalCalories"));
+
+        stats.setCount(stats.getCount() + count);
+        stats.setTotalDuration(stats.getTotalDuration() + duration);
+        stats.setTotalCalories(stats.getTotalCalories() + calories);
+
+        UserActivityStats.TypeStats typeStats = stats.getByType()
+                .computeIfAbsent(type == null ? UNTYPED : type.toString(), k -> new UserActivityStats.TypeStats());
+        typeStats.setCount(typeStats.getCount() + count);
+        typeStats.setTotalDuration(typeStats.getTotalDuration() + duration);
+        typeStats.setTotalCalories(typeStats.getTotalCalories() + calories);
+    }
+
+    private void saveRebuilt(UserActivityStats stats, LocalDateTime runStartedAt) {
+        stats.setUpdatedAt(runStartedAt);
+        stats.setRebuiltAt(runStartedAt);
+        mongoTemplate.save(stats);
+    }
+
+    private static Update delta(Activity activity, int sign) {
+        long duration = activity.getDuration() == null ? 0 : activity.getDuration();
+        long calories = activity.getCaloriesBurned() == null ? 0 : activity.getCaloriesBurned();
+        String typePath = "byType." + (activity.getType() == null ? UNTYPED : activity.getType().name());
+        return new Update()
+                .inc("count", sign)
+                .inc("totalDuration", sign * duration)
+                .inc("totalCalories", sign * calories)
+                .inc(typePath + ".count", sign)
+                .inc(typePath + ".totalDuration", sign * duration)
+                .inc(typePath + ".totalCalories", sign * calories)
+                .set("updatedAt", LocalDateTime.now());
+    }
+
+    private static Query byUser(String userId) {
+        return Query.query(Criteria.where("userId").is(userId));
+    }
+
+    private static UserActivityStats emptyStats(String userId) {
+        return UserActivityStats.builder()
+                .userId(userId)
+                .byType(new HashMap<>())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number n ? n.longValue() : 0L;
+    }
+
+    private static ActivityStatsResponse toResponse(UserActivityStats stats) {
+        ActivityStatsResponse response = new ActivityStatsResponse();
+        response.setCount(stats.getCount());
+        response.setTotalDurationMinutes(stats.getTotalDuration());
+        response.setTotalCaloriesBurned(stats.getTotalCalories());
+        response.setAvgCaloriesPerActivity(stats.getCount() > 0 ? (double) stats.getTotalCalories() / stats.getCount() : 0);
+        Map<String, UserActivityStats.TypeStats> byType = stats.getByType();
+        response.setByType(byType == null ? Map.of() : byType);
+        return response;
+    }
+}
@@ -0,0 +1,193 @@
+package com.fitness.activityservice.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fitness.activityservice.model.OutboxEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drains the outbox to RabbitMQ in batches. Each batch is published on one channel and only
+ * marked SENT after the broker confirms it, so a broker outage delays events but never drops
+ * them. Delivery is at-least-once; the outbox id is sent as the AMQP message id.
+ *
+ * <p>Failures are counted per event. A failed event waits with exponential backoff before it
+ * can be claimed again, and after {@code ACTIVITY_OUTBOX_MAX_ATTEMPTS} it is parked as FAILED.
+ * An event that cannot even be turned into a message fails on its own and is left out of the
+ * batch, so it never holds back the events next to it.
+ */
+@Component
+@ConditionalOnProperty(name = "ACTIVITY_OUTBOX_RELAY_ENABLED", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OutboxRelay {
+
+    private final MongoTemplate mongoTemplate;
+    private final RabbitTemplate rabbitTemplate;
+    private final String exchange;
+    private final int batchSize;
+    private final long confirmTimeoutMs;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long maxRetryBackoffMs;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public OutboxRelay(MongoTemplate mongoTemplate,
+                       RabbitTemplate rabbitTemplate,
+                       DirectExchange activityExchange,
+                       @Value("${ACTIVITY_OUTBOX_BATCH_SIZE:100}") int batchSize,
+                       @Value("${ACTIVITY_OUTBOX_CONFIRM_TIMEOUT_MS:5000}") long confirmTimeoutMs,
+                       @Value("${ACTIVITY_OUTBOX_LEASE_SECONDS:30}") long leaseSeconds,
+                       @Value("${ACTIVITY_OUTBOX_MAX_ATTEMPTS:10}") int maxAttempts,
+                       @Value("${ACTIVITY_OUTBOX_RETRY_BACKOFF_MS:1000}") long retryBackoffMs,
+                       @Value("${ACTIVITY_OUTBOX_MAX_RETRY_BACKOFF_MS:300000}") long maxRetryBackoffMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.rabbitTemplate = rabbitTemplate;
+        this.exchange = activityExchange.getName();
+        this.batchSize = batchSize;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxRetryBackoffMs = maxRetryBackoffMs;
+    }
+
+    @Scheduled(fixedDelayString = "${ACTIVITY_OUTBOX_POLL_INTERVAL_MS:1000}")
+    public void relay() {
+        try {
+            // Keep draining while batches come back full
+            while (relayBatch() == batchSize) {
+                log.debug("Outbox batch full, continuing");
+            }
+        } catch (Exception e) {
+            log.warn("Outbox relay pass failed: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = claimBatch();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<OutboxEvent> publishable = new ArrayList<>(batch.size());
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            try {
+                messages.add(toMessage(event));
+                publishable.add(event);
+            } catch (RuntimeException e) {
+                recordFailure(event, e);
+            }
+        }
+        if (publishable.isEmpty()) {
+            return batch.size();
+        }
+
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (int i = 0; i < publishable.size(); i++) {
+                    operations.send(exchange, publishable.get(i).getRoutingKey(), messages.get(i));
+                }
+                operations.waitForConfirmsOrDie(confirmTimeoutMs);
+                return null;
+            });
+        } catch (Exception e) {
+            // The confirm covers the whole channel, so every event in it is charged an attempt
+            log.warn("Publishing {} outbox events failed, will retry: {}", publishable.size(), e.getMessage());
+            publishable.forEach(event -> recordFailure(event, e));
+            return 0;
+        }
+
+        List<String> ids = publishable.stream().map(OutboxEvent::getId).toList();
+        mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(ids)),
+                new Update().set("status", OutboxEvent.OutboxStatus.SENT).set("sentAt", LocalDateTime.now())
+                        .unset("lockedBy").unset("lockedUntil"),
+                OutboxEvent.class);
+        log.debug("Published {} outbox events", publishable.size());
+        return batch.size();
+    }
+
+    private void recordFailure(OutboxEvent event, Exception error) {
+        int attempts = event.getAttempts() + 1;
+        String message = String.valueOf(error.getMessage());
+        Update update = new Update().set("attempts", attempts).set("lastError", message)
+                .unset("lockedBy").unset("lockedUntil");
+        if (attempts >= maxAttempts) {
+            log.error("Outbox event {} failed {} times, marking it FAILED: {}", event.getId(), attempts, message);
+            update.set("status", OutboxEvent.OutboxStatus.FAILED);
+        } else {
+            update.set("nextAttemptAt", LocalDateTime.now().plus(backoff(attempts), ChronoUnit.MILLIS));
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(event.getId()).and("lockedBy").is(instanceId)),
+                update, OutboxEvent.class);
+    }
+
+    private long backoff(int attempts) {
+        // Doubles per attempt; the shift is capped so it cannot overflow
+        long delay = retryBackoffMs << Math.min(attempts - 1, 20);
+        return Math.min(delay, maxRetryBackoffMs);
+    }
+
+    /**
+     * Takes a time-limited lease on the oldest pending events so that concurrent relay instances
+     * do not publish the same rows; a crashed instance's lease simply expires.
+     */
+    private List<OutboxEvent> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds).truncatedTo(ChronoUnit.MILLIS);
+        Criteria claimable = new Criteria().andOperator(
+                Criteria.where("status").is(OutboxEvent.OutboxStatus.PENDING),
+                new Criteria().orOperator(
+                        Criteria.where("lockedUntil").is(null),
+                        Criteria.where("lockedUntil").lt(now)),
+                new Criteria().orOperator(
+                        Criteria.where("nextAttemptAt").is(null),
+                        Criteria.where("nextAttemptAt").lte(now)));
+
+        Query candidates = Query.query(claimable).with(Sort.by(Sort.Direction.ASC, "createdAt")).limit(batchSize);
+        candidates.fields().include("id");
+        List<String> ids = mongoTemplate.find(candidates, OutboxEvent.class).stream().map(OutboxEvent::getId).toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        mongoTemplate.updateMulti(Query.query(new Criteria().andOperator(Criteria.where("id").in(ids), claimable)),
+                new Update().set("lockedBy", instanceId).set("lockedUntil", leaseUntil),
+                OutboxEvent.class);
+
+        return mongoTemplate.find(Query.query(Criteria.where("id").in(ids)
+                        .and("lockedBy").is(instanceId)
+                        .and("lockedUntil").is(leaseUntil))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt")), OutboxEvent.class);
+    }
+
+    private static Message toMessage(OutboxEvent event) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        properties.setMessageId(event.getId());
+        return new Message(event.getPayload().getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
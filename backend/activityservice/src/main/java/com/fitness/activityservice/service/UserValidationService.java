@@ -1,56 +1,112 @@
 package com.fitness.activityservice.service;
 
+import java.time.Duration;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class UserValidationService {
     private final WebClient apiGatewayWebClient;
 
+    // Definitive answers only; transport failures complete with null and are never cached.
+    // Async so the remote call never runs inside the cache's compute lock, which would pin a
+    // virtual thread's carrier; concurrent callers for the same user share one in-flight call.
+    private final AsyncCache<String, Boolean> validationCache;
+
+    public UserValidationService(WebClient apiGatewayWebClient,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${USER_VALIDATION_CACHE_TTL:10m}") Duration validTtl,
+                                 @Value("${USER_VALIDATION_CACHE_NEGATIVE_TTL:30s}") Duration invalidTtl,
+                                 @Value("${USER_VALIDATION_CACHE_MAX_SIZE:10000}") long maxSize) {
+        this.apiGatewayWebClient = apiGatewayWebClient;
+        this.validationCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Boolean>() {
+                    @Override
+                    public long expireAfterCreate(String userId, Boolean valid, long currentTime) {
+                        return (valid ? validTtl : invalidTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String userId, Boolean valid, long currentTime, long currentDuration) {
+                        return expireAfterCreate(userId, valid, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String userId, Boolean valid, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, validationCache.synchronous(), "userValidation");
+    }
+
     public boolean validateUser(String userId) {
-        log.info("Calling User Validation API for userId: {}", userId);
         if (userId == null || userId.isBlank()) {
             return false;
         }
+        Boolean valid = validationCache.get(userId, (id, executor) -> fetchValidation(id).toFuture()).join();
+        return Boolean.TRUE.equals(valid);
+    }
 
-        try {
-            // userservice returns JSON like: {"valid": true}
-            Map<String, Object> resp = apiGatewayWebClient.get()
-                .uri("/users/{userId}/validate", userId)
-                .header("X-Service-ID", "activity-service")
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block();
+    /**
+     * Drops the cached answer for a user, e.g. after deactivation, so the next call re-validates.
+     */
+    public void evict(String userId) {
+        if (userId != null) {
+            validationCache.synchronous().invalidate(userId);
+        }
+    }
+
+    public void evictAll() {
+        validationCache.synchronous().invalidateAll();
+    }
 
-            if (resp == null) {
+    // Completes empty (cached as absent) when the answer is not definitive
+    private Mono<Boolean> fetchValidation(String userId) {
+        log.info("Calling User Validation API for userId: {}", userId);
+        // userservice returns JSON like: {"valid": true}
+        return apiGatewayWebClient.get()
+            .uri("/users/{userId}/validate", userId)
+            .header("X-Service-ID", "activity-service")
+            .retrieve()
+            .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+            .map(resp -> {
+                Object valid = resp.get("valid");
+                if (valid instanceof Boolean b) {
+                    return b;
+                }
+                if (valid instanceof String s) {
+                    return Boolean.parseBoolean(s);
+                }
                 return false;
-            }
-
-            Object valid = resp.get("valid");
-            if (valid instanceof Boolean b) {
-                return b;
-            }
-            if (valid instanceof String s) {
-                return Boolean.parseBoolean(s);
-            }
-            return false;
-        } catch (WebClientResponseException e) {
-            // Any 4xx/5xx from userservice/gateway should not break activity tracking.
-            log.warn("User validation failed (status={}): {}", e.getStatusCode(), e.getMessage());
-            return false;
-        } catch (Exception e) {
-            // Includes JSON decoding issues, timeouts, etc.
-            log.warn("User validation failed (exception): {}", e.toString());
-            return false;
-        }
+            })
+            .onErrorResume(WebClientResponseException.class, e -> {
+                // Any 4xx/5xx from userservice/gateway should not break activity tracking.
+                log.warn("User validation failed (status={}): {}", e.getStatusCode(), e.getMessage());
+                // A 404 is a definitive "no such user"; anything else may be transient
+                return e.getStatusCode().value() == 404 ? Mono.just(Boolean.FALSE) : Mono.empty();
+            })
+            .onErrorResume(e -> {
+                // Includes JSON decoding issues, timeouts, etc.
+                log.warn("User validation failed (exception): {}", e.toString());
+                return Mono.empty();
+            });
     }
-}
\ No newline at end of file
+}
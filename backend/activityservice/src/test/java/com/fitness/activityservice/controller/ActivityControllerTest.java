@@ -0,0 +1,60 @@
+package com.fitness.activityservice.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.repository.ActivityRepository;
+import com.fitness.activityservice.service.ActivityOutboxService;
+import com.fitness.activityservice.service.ActivityService;
+import com.fitness.activityservice.service.ActivityStatsService;
+import com.fitness.activityservice.service.UserValidationService;
+
+class ActivityControllerTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(new ActivityController(
+            new ActivityService(mock(ActivityRepository.class), mock(UserValidationService.class),
+                    mock(ActivityStatsService.class), mock(ActivityOutboxService.class), mongoTemplate, new ObjectMapper()),
+            mock(ActivityStatsService.class), mock(UserValidationService.class))).build();
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception {
+        for (String cursor : List.of("not base64!", cursor("no-separator"), cursor("yesterday|abc"), cursor("|"))) {
+            mvc.perform(get("/activities/page").header("X-User-ID", "alice").param("cursor", cursor))
+                    .andExpect(status().isBadRequest());
+        }
+        mvc.perform(get("/activities/admin/activities/page").param("cursor", "not base64!"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void validCursorReturnsPage() throws Exception {
+        when(mongoTemplate.find(any(Query.class), eq(Activity.class))).thenReturn(List.of());
+
+        mvc.perform(get("/activities/page").header("X-User-ID", "alice")
+                        .param("cursor", cursor("2026-10-01T07:30|66f0c0ffee")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    private static String cursor(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 @Component
 @SuppressWarnings("null")
@@ -68,6 +70,15 @@ public class ActivityServiceClient {
 
     private HttpHeaders buildHeadersWithBearer() {
         HttpHeaders headers = new HttpHeaders();
+        // With INTERNAL_IDENTITY_ENABLED the principal is the gateway's internal assertion, which the
+        // gateway itself does not accept; pass on the caller's own Authorization header instead.
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            String authorization = attributes.getRequest().getHeader(HttpHeaders.AUTHORIZATION);
+            if (authorization != null && !authorization.isBlank()) {
+                headers.set(HttpHeaders.AUTHORIZATION, authorization);
+                return headers;
+            }
+        }
         var auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth instanceof JwtAuthenticationToken jwtAuth) {
             String token = jwtAuth.getToken().getTokenValue();
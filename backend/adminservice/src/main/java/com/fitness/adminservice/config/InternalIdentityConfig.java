@@ -0,0 +1,47 @@
+package com.fitness.adminservice.config;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+
+/**
+ * Accepts the gateway's X-Internal-Identity assertion (minted by the gateway's
+ * InternalIdentityMinter) in place of the Auth0 JWT when INTERNAL_IDENTITY_ENABLED=true.
+ */
+@Configuration
+@ConditionalOnProperty(name = "INTERNAL_IDENTITY_ENABLED", havingValue = "true")
+public class InternalIdentityConfig {
+
+    public static final String INTERNAL_IDENTITY_HEADER = "X-Internal-Identity";
+
+    private static final String GATEWAY_ISSUER = "fittrack-gateway";
+
+    @Bean
+    public JwtDecoder internalIdentityJwtDecoder(@Value("${INTERNAL_IDENTITY_SECRET:}") String secret) {
+        byte[] key = secret.getBytes(StandardCharsets.UTF_8);
+        if (key.length < 32) {
+            throw new IllegalStateException("INTERNAL_IDENTITY_SECRET must be at least 32 bytes when INTERNAL_IDENTITY_ENABLED=true");
+        }
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(new SecretKeySpec(key, "HmacSHA256"))
+            .macAlgorithm(MacAlgorithm.HS256)
+            .build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(GATEWAY_ISSUER));
+        return decoder;
+    }
+
+    @Bean
+    public BearerTokenResolver internalIdentityTokenResolver() {
+        // Only the gateway's assertion is accepted; a request without it is anonymous
+        return request -> request.getHeader(INTERNAL_IDENTITY_HEADER);
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Locale;
 import java.util.Objects;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -57,6 +58,8 @@ public class SecurityConfig {
     }
 
     @Bean
+    // InternalIdentityConfig provides the decoder when INTERNAL_IDENTITY_ENABLED=true
+    @ConditionalOnProperty(name = "INTERNAL_IDENTITY_ENABLED", havingValue = "false", matchIfMissing = true)
     public JwtDecoder jwtDecoder() {
         if (issuerUri == null || issuerUri.isBlank()) {
             throw new IllegalStateException("spring.security.oauth2.resourceserver.jwt.issuer-uri must be set");
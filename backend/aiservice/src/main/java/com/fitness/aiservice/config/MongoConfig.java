@@ -1,10 +1,45 @@
 package com.fitness.aiservice.config;
 
+import com.fitness.aiservice.model.DailyPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
 
 @Configuration
 @EnableMongoAuditing
 public class MongoConfig {
 
-}
\ No newline at end of file
+    private static final Logger log = LoggerFactory.getLogger(MongoConfig.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean ensureIndexes;
+
+    public MongoConfig(MongoTemplate mongoTemplate, @Value("${AI_MONGO_ENSURE_INDEXES:true}") boolean ensureIndexes) {
+        this.mongoTemplate = mongoTemplate;
+        this.ensureIndexes = ensureIndexes;
+    }
+
+    // Auto index creation is off; create the indexes declared on the models explicitly
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        if (!ensureIndexes) {
+            return;
+        }
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(DailyPlan.class);
+            new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                    .resolveIndexFor(DailyPlan.class)
+                    .forEach(indexOps::createIndex);
+        } catch (Exception e) {
+            // Most likely existing duplicate (userId, planDate) rows; they must be removed before the unique index can build
+            log.warn("Could not ensure daily_plans indexes: {}", e.getMessage());
+        }
+    }
+}
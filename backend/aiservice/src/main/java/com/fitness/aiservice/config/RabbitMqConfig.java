@@ -4,6 +4,8 @@ package com.fitness.aiservice.config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,6 +24,12 @@ public class RabbitMqConfig {
     @Value("${activity.rabbitmq.routing-key}")
     private String routingKey;
 
+    @Value("${activity.rabbitmq.dead-letter-queue:${activity.rabbitmq.queue}.dlq}")
+    private String deadLetterQueueName;
+
+    @Value("${activity.rabbitmq.prefetch:10}")
+    private int prefetch;
+
     @Bean
     public DirectExchange activityExchange() {
         log.info("RabbitMQ Exchange: {}", exchangeName);
@@ -31,7 +39,17 @@ public class RabbitMqConfig {
     @Bean
     public Queue activityQueue() {
         log.info("RabbitMQ Queue: {}", queueName);
-        return new Queue(queueName, true);
+        // Rejected messages are routed via the default exchange to the dead-letter queue
+        return QueueBuilder.durable(queueName)
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(deadLetterQueueName)
+                .build();
+    }
+
+    @Bean
+    public Queue activityDeadLetterQueue() {
+        log.info("RabbitMQ Dead-Letter Queue: {}", deadLetterQueueName);
+        return QueueBuilder.durable(deadLetterQueueName).build();
     }
 
     @Bean
@@ -41,4 +59,16 @@ public class RabbitMqConfig {
                 .to(activityExchange)
                 .with(routingKey);
     }
+
+    // Manual acks: a message is only acknowledged once its recommendation has been stored
+    @Bean
+    public SimpleRabbitListenerContainerFactory activityListenerContainerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setPrefetchCount(prefetch);
+        factory.setConcurrentConsumers(1);
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
 }
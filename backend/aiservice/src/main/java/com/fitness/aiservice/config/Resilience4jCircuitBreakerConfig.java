@@ -1,15 +1,27 @@
 package com.fitness.aiservice.config;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
 
+/**
+ * Circuit breaker, bulkhead and time limiter per outbound dependency. Gemini calls are slow and
+ * quota-bound, user profile lookups are fast, so each gets its own thresholds.
+ */
 @Configuration
 public class Resilience4jCircuitBreakerConfig {
 
@@ -40,6 +52,65 @@ public class Resilience4jCircuitBreakerConfig {
 
     @Bean
     public CircuitBreaker userServiceCircuitBreaker(CircuitBreakerRegistry registry) {
-        return registry.circuitBreaker("userService", baseCircuitBreakerConfig());
+        CircuitBreaker circuitBreaker = registry.circuitBreaker("userService", baseCircuitBreakerConfig());
+        logStateTransitions(circuitBreaker);
+        return circuitBreaker;
+    }
+
+    @Bean
+    public Bulkhead userServiceBulkhead(BulkheadRegistry registry,
+                                        @Value("${USER_PROFILE_MAX_CONCURRENT_CALLS:64}") int maxConcurrentCalls) {
+        return registry.bulkhead("userService", BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+    }
+
+    @Bean
+    public TimeLimiter userServiceTimeLimiter(TimeLimiterRegistry registry,
+                                              @Value("${USER_PROFILE_TIMEOUT:3s}") Duration timeout) {
+        return registry.timeLimiter("userService", TimeLimiterConfig.custom()
+                .timeoutDuration(timeout)
+                .build());
+    }
+
+    // Gemini answers legitimately take several seconds, so "slow" starts much later than for the user service.
+    // A full bulkhead is our own saturation, not a Gemini failure, so it must not open the breaker.
+    @Bean
+    public CircuitBreaker geminiCircuitBreaker(CircuitBreakerRegistry registry,
+                                               @Value("${GEMINI_SLOW_CALL_THRESHOLD:15s}") Duration slowCallThreshold,
+                                               @Value("${GEMINI_CIRCUIT_OPEN_DURATION:30s}") Duration openDuration) {
+        CircuitBreaker circuitBreaker = registry.circuitBreaker("gemini", CircuitBreakerConfig.from(baseCircuitBreakerConfig())
+                .slidingWindowSize(20)
+                .minimumNumberOfCalls(10)
+                .slowCallDurationThreshold(slowCallThreshold)
+                .waitDurationInOpenState(openDuration)
+                .ignoreExceptions(BulkheadFullException.class)
+                .build());
+        logStateTransitions(circuitBreaker);
+        return circuitBreaker;
+    }
+
+    @Bean
+    public Bulkhead geminiBulkhead(BulkheadRegistry registry,
+                                   @Value("${GEMINI_MAX_CONCURRENT_CALLS:16}") int maxConcurrentCalls) {
+        return registry.bulkhead("gemini", BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+    }
+
+    @Bean
+    public TimeLimiter geminiTimeLimiter(TimeLimiterRegistry registry,
+                                         @Value("${GEMINI_TIMEOUT:30s}") Duration timeout) {
+        return registry.timeLimiter("gemini", TimeLimiterConfig.custom()
+                .timeoutDuration(timeout)
+                .build());
+    }
+
+    private void logStateTransitions(CircuitBreaker circuitBreaker) {
+        circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> logger.warn("Circuit Breaker {}: {}",
+                        event.getCircuitBreakerName(), event.getStateTransition()));
     }
 }
@@ -31,28 +31,29 @@ public class DailyPlanController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<DailyPlan>> getUserPlans(
+    public Mono<ResponseEntity<List<DailyPlan>>> getUserPlans(
             @PathVariable String userId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        List<DailyPlan> plans = dailyPlanService.getUserPlans(userId, startDate, endDate);
-        return ResponseEntity.ok(plans);
+        return dailyPlanService.getUserPlans(userId, startDate, endDate)
+                .collectList()
+                .map(ResponseEntity::ok);
     }
 
     @GetMapping("/user/{userId}/date/{date}")
-    public ResponseEntity<DailyPlan> getPlanByDate(
+    public Mono<ResponseEntity<DailyPlan>> getPlanByDate(
             @PathVariable String userId,
             @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        DailyPlan plan = dailyPlanService.getOrGeneratePlanByDate(userId, date);
-        return ResponseEntity.ok(plan);
+        return dailyPlanService.getOrGeneratePlanByDate(userId, date)
+                .map(ResponseEntity::ok);
     }
 
     @PutMapping("/user/{userId}/date/{date}")
-    public ResponseEntity<DailyPlan> updatePlanByDate(
+    public Mono<ResponseEntity<DailyPlan>> updatePlanByDate(
             @PathVariable String userId,
             @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
             @RequestBody DailyPlan request) {
-        DailyPlan updated = dailyPlanService.updatePlan(userId, date, request);
-        return ResponseEntity.ok(updated);
+        return dailyPlanService.updatePlan(userId, date, request)
+                .map(ResponseEntity::ok);
     }
-}
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.fitness.aiservice.controller;
 
 import com.fitness.aiservice.model.Recommendation;
 import com.fitness.aiservice.service.RecommendationService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -39,6 +40,11 @@ public class RecommendationController {
 
     @GetMapping("/activity/{activityId}")
     public ResponseEntity<Recommendation> getActivityRecommendation(@PathVariable String activityId){
-        return ResponseEntity.ok(recommendationService.getActivityRecommendation(activityId));
+        Recommendation recommendation = recommendationService.getActivityRecommendation(activityId);
+        if (!recommendation.isGenerated()) {
+            // Placeholder until the AI result lands; the gateway must not cache it
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(recommendation);
+        }
+        return ResponseEntity.ok(recommendation);
     }
 }
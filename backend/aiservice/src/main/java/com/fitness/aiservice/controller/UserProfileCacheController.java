@@ -0,0 +1,31 @@
+package com.fitness.aiservice.controller;
+
+import com.fitness.aiservice.service.UserProfileClient;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/recommendations/admin/user-profile-cache")
+public class UserProfileCacheController {
+    private final UserProfileClient userProfileClient;
+
+    public UserProfileCacheController(UserProfileClient userProfileClient) {
+        this.userProfileClient = userProfileClient;
+    }
+
+    // Profile-updated signal: the next recommendation or plan for this user reloads the profile
+    @DeleteMapping("/{userId}")
+    public ResponseEntity<Void> evictUserProfile(@PathVariable String userId) {
+        userProfileClient.evict(userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> evictAllUserProfiles() {
+        userProfileClient.evictAll();
+        return ResponseEntity.noContent().build();
+    }
+}
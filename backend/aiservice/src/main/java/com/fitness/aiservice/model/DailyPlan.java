@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -12,6 +13,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "daily_plans")
+@CompoundIndex(name = "userId_planDate", def = "{'userId': 1, 'planDate': 1}", unique = true)
 @Data
 @Builder
 @AllArgsConstructor
@@ -0,0 +1,24 @@
+package com.fitness.aiservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persistent tier of the Gemini response cache, keyed by the SHA-256 of the normalised prompt.
+ * Expired by a TTL index on {@code createdAt} created by {@code GeminiResponseCache}.
+ */
+@Document(collection = "gemini_response_cache")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GeminiCacheEntry {
+    @Id
+    private String promptHash;
+    private String response;
+    private LocalDateTime createdAt;
+}
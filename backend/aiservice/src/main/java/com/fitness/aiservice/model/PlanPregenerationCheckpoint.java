@@ -0,0 +1,38 @@
+package com.fitness.aiservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the nightly plan pre-generation for one target date. Users are processed in
+ * ascending userId order, so {@code lastUserId} is where a restarted run resumes. The document
+ * also carries the lease that lets only one service instance work on a date at a time.
+ */
+@Document(collection = "plan_pregeneration_runs")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlanPregenerationCheckpoint {
+    @Id
+    private LocalDate planDate;
+    private String lastUserId;
+    private long processed;
+    private long failed;
+    private boolean completed;
+
+    // Lease held by the instance currently running this date; an expired lease can be taken over
+    private String lockedBy;
+    private LocalDateTime lockedUntil;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
@@ -1,16 +1,16 @@
 package com.fitness.aiservice.repository;
 
 import com.fitness.aiservice.model.DailyPlan;
-import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface DailyPlanRepository extends MongoRepository<DailyPlan, String> {
-    Optional<DailyPlan> findByUserIdAndPlanDate(String userId, LocalDate planDate);
-    List<DailyPlan> findByUserId(String userId);
-    List<DailyPlan> findByUserIdAndPlanDateBetween(String userId, LocalDate startDate, LocalDate endDate);
+public interface DailyPlanRepository extends ReactiveMongoRepository<DailyPlan, String> {
+    Mono<DailyPlan> findByUserIdAndPlanDate(String userId, LocalDate planDate);
+    Flux<DailyPlan> findByUserId(String userId);
+    Flux<DailyPlan> findByUserIdAndPlanDateBetween(String userId, LocalDate startDate, LocalDate endDate);
 }
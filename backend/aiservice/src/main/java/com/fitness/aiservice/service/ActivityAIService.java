@@ -1,14 +1,12 @@
 package com.fitness.aiservice.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.aiservice.dto.GeminiRecommendation;
 import com.fitness.aiservice.dto.UserProfile;
 import com.fitness.aiservice.model.Activity;
 import com.fitness.aiservice.model.Recommendation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
@@ -18,12 +16,14 @@ import java.util.*;
 public class ActivityAIService {
     private static final Logger log = LoggerFactory.getLogger(ActivityAIService.class);
     private final GeminiService geminiService;
-    private final WebClient apiGatewayWebClient;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final UserProfileClient userProfileClient;
+    private final GeminiResponseDecoder responseDecoder;
 
-    public ActivityAIService(GeminiService geminiService, WebClient apiGatewayWebClient) {
+    public ActivityAIService(GeminiService geminiService, UserProfileClient userProfileClient,
+                             GeminiResponseDecoder responseDecoder) {
         this.geminiService = geminiService;
-        this.apiGatewayWebClient = apiGatewayWebClient;
+        this.userProfileClient = userProfileClient;
+        this.responseDecoder = responseDecoder;
     }
 
     private void logError(String message, Throwable e) {
@@ -35,10 +35,10 @@ public class ActivityAIService {
     }
 
     public Mono<Recommendation> generateRecommendation(Activity activity) {
-        return fetchUserProfile(activity.getUserId())
+        return userProfileClient.getProfile(activity.getUserId())
                 .flatMap(userProfile -> {
                     String prompt = createPromptForActivity(activity, userProfile);
-                    return geminiService.getAnswer(prompt)
+                    return geminiService.getAnswer(prompt, GeminiPriority.BACKGROUND)
                             .map(aiResponse -> processAiResponse(activity, aiResponse))
                             .onErrorResume(e -> {
                                 logError("Gemini API error, using default recommendation", e);
@@ -48,7 +48,7 @@ public class ActivityAIService {
                 .onErrorResume(e -> {
                     logError("Error fetching user profile, using basic recommendation", e);
                     String prompt = createPromptForActivity(activity, null);
-                    return geminiService.getAnswer(prompt)
+                    return geminiService.getAnswer(prompt, GeminiPriority.BACKGROUND)
                             .map(aiResponse -> processAiResponse(activity, aiResponse))
                             .onErrorResume(e2 -> {
                                 logError("Gemini API failed, using default", e2);
@@ -57,42 +57,22 @@ public class ActivityAIService {
                 });
     }
 
-    private Mono<UserProfile> fetchUserProfile(String userId) {
-        return apiGatewayWebClient.get()
-            .uri("/users/{userId}", userId)
-                .header("X-Service-ID", "ai-service")
-                .retrieve()
-                .bodyToMono(UserProfile.class)
-                .doOnError(e -> logError("Error fetching user profile", e));
-    }
-
     private Recommendation processAiResponse(Activity activity, String aiResponse){
         try {
-            JsonNode rootNode = mapper.readTree(aiResponse);
-            JsonNode textNode = rootNode.path("candidates")
-                    .get(0)
-                    .path("content")
-                    .path("parts")
-                    .get(0)
-                    .path("text");
-
-            String jsonContent = textNode.asText()
-                    .replaceAll("```json\\n", "")
-                    .replaceAll("\\n```", "")
-                    .trim();
-
-            JsonNode analysisJson = mapper.readTree(jsonContent);
-            JsonNode analysisNode = analysisJson.path("analysis");
+            GeminiRecommendation answer = responseDecoder.readRecommendation(aiResponse);
+            GeminiRecommendation.Analysis analysis = answer.getAnalysis();
 
             StringBuilder fullAnalysis = new StringBuilder();
-            addAnalysisSection(fullAnalysis, analysisNode, "overall", "Overall: ");
-            addAnalysisSection(fullAnalysis, analysisNode, "pace", "Pace:");
-            addAnalysisSection(fullAnalysis, analysisNode, "heartRate", "Heart Rate:");
-            addAnalysisSection(fullAnalysis, analysisNode, "caloriesBurned", "Calories:");
+            if (analysis != null) {
+                addAnalysisSection(fullAnalysis, analysis.getOverall(), "Overall: ");
+                addAnalysisSection(fullAnalysis, analysis.getPace(), "Pace:");
+                addAnalysisSection(fullAnalysis, analysis.getHeartRate(), "Heart Rate:");
+                addAnalysisSection(fullAnalysis, analysis.getCaloriesBurned(), "Calories:");
+            }
 
-            List<String> improvements = extractImprovements(analysisJson.path("improvements"));
-            List<String> suggestions = extractSuggestions(analysisJson.path("suggestions"));
-            List<String> safety = extractSafetyGuidelines(analysisJson.path("safety"));
+            List<String> improvements = extractImprovements(answer.getImprovements());
+            List<String> suggestions = extractSuggestions(answer.getSuggestions());
+            List<String> safety = extractSafetyGuidelines(answer.getSafety());
 
                 Recommendation rec = new Recommendation();
                 rec.setActivityId(activity.getId());
@@ -130,22 +110,22 @@ public class ActivityAIService {
         return rec;
     }
 
-    private List<String> extractSafetyGuidelines(JsonNode safetyNode) {
+    private List<String> extractSafetyGuidelines(List<String> safetyItems) {
         List<String> safety = new ArrayList<>();
-        if (safetyNode.isArray()) {
-            safetyNode.forEach(item -> safety.add(item.asText()));
+        if (safetyItems != null) {
+            safetyItems.forEach(item -> safety.add(Objects.toString(item, "")));
         }
         return safety.isEmpty() ?
                 Collections.singletonList("Follow general safety guidelines") :
                 safety;
     }
 
-    private List<String> extractSuggestions(JsonNode suggestionsNode) {
+    private List<String> extractSuggestions(List<GeminiRecommendation.Suggestion> suggestionItems) {
         List<String> suggestions = new ArrayList<>();
-        if (suggestionsNode.isArray()) {
-            suggestionsNode.forEach(suggestion -> {
-                String workout = suggestion.path("workout").asText();
-                String description = suggestion.path("description").asText();
+        if (suggestionItems != null) {
+            suggestionItems.forEach(suggestion -> {
+                String workout = Objects.toString(suggestion.getWorkout(), "");
+                String description = Objects.toString(suggestion.getDescription(), "");
                 suggestions.add(String.format("%s: %s", workout, description));
             });
         }
@@ -154,12 +134,12 @@ public class ActivityAIService {
                 suggestions;
     }
 
-    private List<String> extractImprovements(JsonNode improvementsNode) {
+    private List<String> extractImprovements(List<GeminiRecommendation.Improvement> improvementItems) {
         List<String> improvements = new ArrayList<>();
-        if (improvementsNode.isArray()) {
-            improvementsNode.forEach(improvement -> {
-                String area = improvement.path("area").asText();
-                String detail = improvement.path("recommendation").asText();
+        if (improvementItems != null) {
+            improvementItems.forEach(improvement -> {
+                String area = Objects.toString(improvement.getArea(), "");
+                String detail = Objects.toString(improvement.getRecommendation(), "");
                 improvements.add(String.format("%s: %s", area, detail));
             });
         }
@@ -168,10 +148,10 @@ public class ActivityAIService {
                 improvements;
     }
 
-    private void addAnalysisSection(StringBuilder fullAnalysis, JsonNode analysisNode, String key, String prefix) {
-        if(!analysisNode.path(key).isMissingNode()) {
+    private void addAnalysisSection(StringBuilder fullAnalysis, String value, String prefix) {
+        if (value != null) {
             fullAnalysis.append(prefix)
-                    .append(analysisNode.path(key).asText())
+                    .append(value)
                     .append("\n\n");
         }
     }
@@ -1,14 +1,26 @@
 package com.fitness.aiservice.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fitness.aiservice.model.Activity;
 import com.fitness.aiservice.repository.RecommendationRepository;
+import com.rabbitmq.client.Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-// Removed custom RabbitMQProperties
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Consumes activity.created events with bounded concurrency. The listener thread blocks while
+ * {@code max-in-flight} recommendations are being generated, so with manual acks and a fixed
+ * prefetch the broker stops delivering until the Gemini pipeline has capacity again.
+ */
 @Service
 public class ActivityMessageListener {
 
@@ -16,23 +28,78 @@ public class ActivityMessageListener {
 
     private final ActivityAIService aiService;
     private final RecommendationRepository recommendationRepository;
-    public ActivityMessageListener(ActivityAIService aiService, RecommendationRepository recommendationRepository) {
+    private final ObjectMapper objectMapper;
+    private final Semaphore inFlight;
+
+    public ActivityMessageListener(ActivityAIService aiService,
+                                   RecommendationRepository recommendationRepository,
+                                   ObjectMapper objectMapper,
+                                   @Value("${activity.rabbitmq.max-in-flight:4}") int maxInFlight) {
         this.aiService = aiService;
         this.recommendationRepository = recommendationRepository;
+        this.objectMapper = objectMapper;
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
     }
 
-    @RabbitListener(queues = "${activity.rabbitmq.queue}", autoStartup = "true")
-    public void processActivity(Activity activity) {
+    @RabbitListener(queues = "${activity.rabbitmq.queue}", containerFactory = "activityListenerContainerFactory", autoStartup = "true")
+    public void processActivity(Message message, Channel channel) throws IOException, InterruptedException {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+
+        Activity activity;
+        try {
+            // activityservice publishes the activity document as JSON
+            activity = objectMapper.readValue(message.getBody(), Activity.class);
+        } catch (Exception e) {
+            log.error("Rejecting unreadable activity message {}: {}", message.getMessageProperties().getMessageId(), e.getMessage());
+            channel.basicReject(deliveryTag, false);
+            return;
+        }
+        if (activity == null || activity.getId() == null) {
+            log.error("Rejecting activity message without id: {}", message.getMessageProperties().getMessageId());
+            channel.basicReject(deliveryTag, false);
+            return;
+        }
+
         log.info("Received activity for processing: {}", activity.getId());
+        inFlight.acquire();
+
+        // Events are delivered at least once; skip activities that already have a recommendation
+        Mono.fromCallable(() -> recommendationRepository.findByActivityId(activity.getId()).isPresent())
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(exists -> exists
+                        ? Mono.just(false)
+                        : aiService.generateRecommendation(activity)
+                                .publishOn(Schedulers.boundedElastic())
+                                .map(recommendation -> {
+                                    log.info("Generated Recommendation for activity {}: {}", activity.getId(), recommendation.getRecommendation());
+                                    recommendationRepository.save(recommendation);
+                                    return true;
+                                })
+                                // e.g. the profile lookup returned no body; without this the message is never acked
+                                .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+                                        "No recommendation generated for activity " + activity.getId()))))
+                .doFinally(signal -> inFlight.release())
+                .subscribe(
+                        saved -> ack(channel, deliveryTag, activity.getId()),
+                        error -> nack(channel, message, activity.getId(), error));
+    }
+
+    private void ack(Channel channel, long deliveryTag, String activityId) {
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (IOException e) {
+            log.error("Failed to ack activity {}: {}", activityId, e.getMessage());
+        }
+    }
 
-        // Reactive processing with blocking persistence offloaded
-        aiService.generateRecommendation(activity)
-                .publishOn(Schedulers.boundedElastic())
-                .doOnNext(recommendation -> {
-                    log.info("Generated Recommendation for activity {}: {}", activity.getId(), recommendation.getRecommendation());
-                    recommendationRepository.save(recommendation);
-                })
-                .doOnError(error -> log.error("Error generating recommendation for activity {}: {}", activity.getId(), error.getMessage()))
-                .subscribe();
+    // First failure is requeued once; a redelivered message that fails again goes to the dead-letter queue
+    private void nack(Channel channel, Message message, String activityId, Throwable error) {
+        boolean requeue = !Boolean.TRUE.equals(message.getMessageProperties().getRedelivered());
+        log.error("Error processing activity {} ({}): {}", activityId, requeue ? "requeueing" : "dead-lettering", error.getMessage());
+        try {
+            channel.basicNack(message.getMessageProperties().getDeliveryTag(), false, requeue);
+        } catch (IOException e) {
+            log.error("Failed to nack activity {}: {}", activityId, e.getMessage());
+        }
     }
 }
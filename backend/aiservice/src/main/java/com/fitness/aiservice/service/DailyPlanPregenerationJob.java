@@ -0,0 +1,241 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.DailyPlan;
+import com.fitness.aiservice.model.PlanPregenerationCheckpoint;
+import com.fitness.aiservice.model.Recommendation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationPipeline;
+import org.springframework.data.mongodb.core.aggregation.UnionWithOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates tomorrow's daily plan for recently active users during off-peak hours, so the
+ * morning rush reads stored plans instead of waiting on Gemini. Users are walked in userId order
+ * in chunks; the checkpoint is saved after each chunk, so a restart repeats at most one chunk
+ * (which is harmless, because generation returns an existing plan).
+ *
+ * <p>With several service instances the cron fires on each of them. Only the instance that takes
+ * the lease on the date's checkpoint runs; it renews the lease with every checkpoint save, and if
+ * it dies another instance's next trigger can take over once {@code AI_PLAN_PREGENERATION_LEASE}
+ * has passed and resume from the checkpoint.
+ */
+@Component
+@ConditionalOnProperty(name = "AI_PLAN_PREGENERATION_ENABLED", havingValue = "true", matchIfMissing = true)
+public class DailyPlanPregenerationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyPlanPregenerationJob.class);
+
+    private final DailyPlanService dailyPlanService;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final int activeDays;
+    private final int parallelism;
+    private final Duration interval;
+    private final int chunkSize;
+    private final Duration lease;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong remainingInChunk = new AtomicLong();
+    private final Counter generated;
+    private final Counter failed;
+    private final Timer runDuration;
+
+    public DailyPlanPregenerationJob(DailyPlanService dailyPlanService,
+                                     ReactiveMongoTemplate mongoTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${AI_PLAN_PREGENERATION_ACTIVE_DAYS:7}") int activeDays,
+                                     @Value("${AI_PLAN_PREGENERATION_PARALLELISM:4}") int parallelism,
+                                     @Value("${AI_PLAN_PREGENERATION_RATE_PER_SECOND:2}") double ratePerSecond,
+                                     @Value("${AI_PLAN_PREGENERATION_LEASE:30m}") Duration lease) {
+        this.dailyPlanService = dailyPlanService;
+        this.mongoTemplate = mongoTemplate;
+        this.activeDays = activeDays;
+        this.parallelism = Math.max(1, parallelism);
+        this.interval = Duration.ofNanos((long) (1_000_000_000L / Math.max(0.01, ratePerSecond)));
+        this.chunkSize = this.parallelism * 10;
+        this.lease = lease;
+
+        this.generated = Counter.builder("plan.pregeneration.users").tag("result", "generated").register(meterRegistry);
+        this.failed = Counter.builder("plan.pregeneration.users").tag("result", "failed").register(meterRegistry);
+        this.runDuration = Timer.builder("plan.pregeneration.run.duration").register(meterRegistry);
+        Gauge.builder("plan.pregeneration.running", running, r -> r.get() ? 1 : 0).register(meterRegistry);
+        Gauge.builder("plan.pregeneration.chunk.remaining", remainingInChunk, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${AI_PLAN_PREGENERATION_CRON:0 0 2 * * *}")
+    public void pregenerateTomorrow() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Plan pre-generation still running, skipping this trigger");
+            return;
+        }
+        try {
+            runDuration.record(() -> run(LocalDate.now().plusDays(1)).block());
+        } catch (Exception e) {
+            log.error("Plan pre-generation failed", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    Mono<PlanPregenerationCheckpoint> run(LocalDate planDate) {
+        return acquireLease(planDate)
+                .flatMap(checkpoint -> {
+                    log.info("Pre-generating plans for {} (resuming after: {})", planDate, checkpoint.getLastUserId());
+                    return activeUsersAfter(checkpoint.getLastUserId())
+                            .buffer(chunkSize)
+                            .concatMap(chunk -> processChunk(planDate, chunk, checkpoint))
+                            .then(Mono.defer(() -> {
+                                checkpoint.setCompleted(true);
+                                checkpoint.setFinishedAt(LocalDateTime.now());
+                                checkpoint.setLockedBy(null);
+                                checkpoint.setLockedUntil(null);
+                                return save(checkpoint);
+                            }))
+                            .doOnNext(done -> log.info("Plan pre-generation for {} finished: processed={} failed={}",
+                                    planDate, done.getProcessed(), done.getFailed()))
+                            // Let the next trigger resume at once instead of waiting out the lease
+                            .onErrorResume(e -> releaseLease(planDate).then(Mono.error(e)));
+                })
+                .switchIfEmpty(Mono.fromRunnable(() ->
+                        log.info("Plans for {} are already pre-generated or another instance holds the lease", planDate)));
+    }
+
+    /**
+     * Claims the date's checkpoint, creating it on the first run. Comes back empty when the date
+     * is already completed or another instance holds an unexpired lease; in both cases the upsert
+     * collides with the existing document.
+     */
+    private Mono<PlanPregenerationCheckpoint> acquireLease(LocalDate planDate) {
+        LocalDateTime now = LocalDateTime.now();
+        Query claimable = Query.query(new Criteria().andOperator(
+                Criteria.where("planDate").is(planDate),
+                Criteria.where("completed").ne(true),
+                new Criteria().orOperator(
+                        Criteria.where("lockedUntil").is(null),
+                        Criteria.where("lockedUntil").lt(now))));
+        Update claim = new Update()
+                .set("lockedBy", instanceId)
+                .set("lockedUntil", now.plus(lease))
+                .setOnInsert("startedAt", now);
+        return mongoTemplate.findAndModify(claimable, claim, FindAndModifyOptions.options().upsert(true).returnNew(true),
+                        PlanPregenerationCheckpoint.class)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.empty());
+    }
+
+    private Mono<Void> releaseLease(LocalDate planDate) {
+        return mongoTemplate.updateFirst(
+                        Query.query(Criteria.where("planDate").is(planDate).and("lockedBy").is(instanceId)),
+                        new Update().unset("lockedBy").unset("lockedUntil"),
+                        PlanPregenerationCheckpoint.class)
+                .onErrorResume(e -> {
+                    log.warn("Could not release the plan pre-generation lease for {}: {}", planDate, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<PlanPregenerationCheckpoint> processChunk(LocalDate planDate, List<String> userIds,
+                                                           PlanPregenerationCheckpoint checkpoint) {
+        remainingInChunk.set(userIds.size());
+        return Flux.fromIterable(userIds)
+                // Spaces out Gemini calls to the configured rate
+                .delayElements(interval)
+                .flatMap(userId -> dailyPlanService.generateDailyPlan(userId, planDate, GeminiPriority.BATCH)
+                        .map(this::wasStored)
+                        .onErrorResume(e -> {
+                            log.warn("Plan pre-generation failed for user {}: {}", userId, e.getMessage());
+                            return Mono.just(false);
+                        })
+                        .defaultIfEmpty(false)
+                        .doFinally(signal -> remainingInChunk.decrementAndGet()), parallelism)
+                .reduce(new long[2], (totals, ok) -> {
+                    totals[ok ? 0 : 1]++;
+                    (ok ? generated : failed).increment();
+                    return totals;
+                })
+                .flatMap(totals -> {
+                    checkpoint.setLastUserId(userIds.get(userIds.size() - 1));
+                    checkpoint.setProcessed(checkpoint.getProcessed() + totals[0] + totals[1]);
+                    checkpoint.setFailed(checkpoint.getFailed() + totals[1]);
+                    return save(checkpoint);
+                });
+    }
+
+    // A plan without an id is the unsaved fallback returned when Gemini or the profile lookup failed
+    private boolean wasStored(DailyPlan plan) {
+        return plan.getId() != null;
+    }
+
+    /**
+     * Writes the checkpoint and renews the lease, but only while this instance still holds it;
+     * if the lease expired and was taken over, the run stops rather than overwrite the new owner.
+     */
+    private Mono<PlanPregenerationCheckpoint> save(PlanPregenerationCheckpoint checkpoint) {
+        LocalDateTime now = LocalDateTime.now();
+        checkpoint.setUpdatedAt(now);
+        if (checkpoint.getLockedBy() != null) {
+            checkpoint.setLockedUntil(now.plus(lease));
+        }
+        Query owned = Query.query(Criteria.where("planDate").is(checkpoint.getPlanDate()).and("lockedBy").is(instanceId));
+        return mongoTemplate.findAndReplace(owned, checkpoint)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+                        "Lost the plan pre-generation lease for " + checkpoint.getPlanDate())))
+                .thenReturn(checkpoint);
+    }
+
+    /**
+     * Users with a daily plan or an activity recommendation in the last {@code activeDays} days,
+     * in ascending id order, strictly after {@code lastUserId}.
+     */
+    private Flux<String> activeUsersAfter(String lastUserId) {
+        LocalDate sinceDate = LocalDate.now().minusDays(activeDays);
+        LocalDateTime since = sinceDate.atStartOfDay();
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(Criteria.where("planDate").gte(sinceDate)));
+        stages.add(Aggregation.project("userId"));
+        stages.add(UnionWithOperation.unionWith(mongoTemplate.getCollectionName(Recommendation.class))
+                .pipeline(new AggregationPipeline(List.of(
+                        Aggregation.match(Criteria.where("createdAt").gte(since)),
+                        Aggregation.project("userId")))));
+        stages.add(Aggregation.group("userId"));
+        if (lastUserId != null) {
+            stages.add(Aggregation.match(Criteria.where("_id").gt(lastUserId)));
+        }
+        stages.add(Aggregation.sort(Sort.Direction.ASC, "_id"));
+
+        return mongoTemplate.aggregate(Aggregation.newAggregation(stages), DailyPlan.class, Document.class)
+                .map(row -> row.get("_id"))
+                .filter(String.class::isInstance)
+                .cast(String.class);
+    }
+}
@@ -1,37 +1,39 @@
 package com.fitness.aiservice.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fitness.aiservice.dto.UserProfile;
 import com.fitness.aiservice.model.DailyPlan;
 import com.fitness.aiservice.repository.DailyPlanRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class DailyPlanService {
     private static final Logger log = LoggerFactory.getLogger(DailyPlanService.class);
     private final DailyPlanRepository dailyPlanRepository;
     private final GeminiService geminiService;
-    private final WebClient apiGatewayWebClient;
-    private final ObjectMapper mapper;
+    private final UserProfileClient userProfileClient;
+    private final GeminiResponseDecoder responseDecoder;
+    private final Map<String, Mono<DailyPlan>> inFlightGenerations = new ConcurrentHashMap<>();
 
-    public DailyPlanService(DailyPlanRepository dailyPlanRepository, GeminiService geminiService, WebClient apiGatewayWebClient) {
+    public DailyPlanService(DailyPlanRepository dailyPlanRepository, GeminiService geminiService, UserProfileClient userProfileClient,
+                            GeminiResponseDecoder responseDecoder) {
         this.dailyPlanRepository = dailyPlanRepository;
         this.geminiService = geminiService;
-        this.apiGatewayWebClient = apiGatewayWebClient;
-        this.mapper = new ObjectMapper();
+        this.userProfileClient = userProfileClient;
+        this.responseDecoder = responseDecoder;
     }
 
     private void logError(String message, Throwable e) {
@@ -42,106 +44,79 @@ public class DailyPlanService {
         }
     }
 
-    @SuppressWarnings("null")
+    /**
+     * Returns the stored plan for the day or generates one. Concurrent callers for the same
+     * (userId, planDate) share a single in-flight generation instead of each calling Gemini.
+     */
     public Mono<DailyPlan> generateDailyPlan(String userId, LocalDate planDate) {
-        // Check if plan already exists
-        Optional<DailyPlan> existingPlan = dailyPlanRepository.findByUserIdAndPlanDate(userId, planDate);
-        if (existingPlan.isPresent()) {
-            return Mono.just(existingPlan.get());
-        }
+        return generateDailyPlan(userId, planDate, GeminiPriority.INTERACTIVE);
+    }
 
-        // Fetch user profile from user service
-        return fetchUserProfile(userId)
-            .publishOn(Schedulers.boundedElastic())
+    // The lane of whichever caller starts the generation applies to everyone sharing it
+    public Mono<DailyPlan> generateDailyPlan(String userId, LocalDate planDate, GeminiPriority priority) {
+        String key = userId + "|" + planDate;
+        return inFlightGenerations.computeIfAbsent(key, k -> loadOrGenerate(userId, planDate, priority)
+                .doFinally(signal -> inFlightGenerations.remove(k))
+                .cache());
+    }
+
+    private Mono<DailyPlan> loadOrGenerate(String userId, LocalDate planDate, GeminiPriority priority) {
+        return dailyPlanRepository.findByUserIdAndPlanDate(userId, planDate)
+            // Fetch user profile from user service
+            .switchIfEmpty(Mono.defer(() -> userProfileClient.getProfile(userId)
                 .flatMap(userProfile -> {
                     String prompt = createDailyPlanPrompt(userProfile, planDate);
-                        return geminiService.getAnswer(prompt)
-                            .map(aiResponse -> processDailyPlanResponse(userId, planDate, aiResponse, userProfile))
-                            .doOnNext(plan -> {
-                                if (plan != null) {
-                                    dailyPlanRepository.save(plan);
-                                    log.info("Daily plan saved for user: {}", userId);
-                                }
-                            })
-                            .onErrorReturn(createDefaultDailyPlan(userId, planDate));
+                    Mono<DailyPlan> generated = geminiService.isStreamingEnabled()
+                        ? geminiService.streamJson(prompt, priority)
+                            .map(planJson -> processStreamedPlan(userId, planDate, planJson))
+                        : geminiService.getAnswer(prompt, priority)
+                            .map(aiResponse -> processDailyPlanResponse(userId, planDate, aiResponse));
+                    return generated
+                        .flatMap(this::saveOrLoadExisting)
+                        .onErrorReturn(createDefaultDailyPlan(userId, planDate));
                 })
-                .onErrorReturn(createDefaultDailyPlan(userId, planDate));
+                .onErrorReturn(createDefaultDailyPlan(userId, planDate))));
     }
 
-    private Mono<UserProfile> fetchUserProfile(String userId) {
-        return apiGatewayWebClient.get()
-            .uri("/users/{userId}", userId)
-                .header("X-Service-ID", "ai-service")
-                .retrieve()
-                .bodyToMono(UserProfile.class)
-                .doOnError(e -> logError("Error fetching user profile", e));
+    // Another instance may have stored the day's plan first; the unique index makes that the winner
+    private Mono<DailyPlan> saveOrLoadExisting(DailyPlan plan) {
+        return dailyPlanRepository.save(plan)
+            .doOnNext(saved -> log.info("Daily plan saved for user: {}", plan.getUserId()))
+            .onErrorResume(DuplicateKeyException.class, e -> {
+                log.info("Daily plan for user {} on {} was created concurrently, using stored plan", plan.getUserId(), plan.getPlanDate());
+                return dailyPlanRepository.findByUserIdAndPlanDate(plan.getUserId(), plan.getPlanDate())
+                    .defaultIfEmpty(plan);
+            });
     }
 
-    private DailyPlan processDailyPlanResponse(String userId, LocalDate planDate, String aiResponse, UserProfile userProfile) {
+    private DailyPlan processDailyPlanResponse(String userId, LocalDate planDate, String aiResponse) {
         try {
-            JsonNode rootNode = mapper.readTree(aiResponse);
-            JsonNode textNode = rootNode.path("candidates")
-                    .get(0)
-                    .path("content")
-                    .path("parts")
-                    .get(0)
-                    .path("text");
-
-            String jsonContent = textNode.asText()
-                    .replaceAll("```json\\n", "")
-                    .replaceAll("\\n```", "")
-                    .trim();
-
-            JsonNode planJson = mapper.readTree(jsonContent);
-
-            List<DailyPlan.WorkoutPlan> workouts = new ArrayList<>();
-            JsonNode workoutsNode = planJson.path("workouts");
-            if (workoutsNode.isArray()) {
-                workoutsNode.forEach(workoutNode -> {
-                    List<String> exercises = new ArrayList<>();
-                    JsonNode exercisesNode = workoutNode.path("exercises");
-                    if (exercisesNode.isArray()) {
-                        exercisesNode.forEach(ex -> exercises.add(ex.asText()));
-                    }
-
-                    DailyPlan.WorkoutPlan workout = new DailyPlan.WorkoutPlan();
-                    workout.setTime(workoutNode.path("time").asText());
-                    workout.setType(workoutNode.path("type").asText());
-                    workout.setDuration(workoutNode.path("duration").asInt());
-                    workout.setIntensity(workoutNode.path("intensity").asText());
-                    workout.setDescription(workoutNode.path("description").asText());
-                    workout.setExercises(exercises);
-                    workouts.add(workout);
-                });
-            }
-
-            List<String> goals = new ArrayList<>();
-            JsonNode goalsNode = planJson.path("goals");
-            if (goalsNode.isArray()) {
-                goalsNode.forEach(goal -> goals.add(goal.asText()));
-            }
-
-            DailyPlan plan = new DailyPlan();
-            plan.setUserId(userId);
-            plan.setPlanDate(planDate);
-            plan.setMorningRoutine(planJson.path("morningRoutine").asText());
-            plan.setWorkouts(workouts);
-            plan.setNutritionAdvice(planJson.path("nutritionAdvice").asText());
-            plan.setHydrationReminder(planJson.path("hydrationReminder").asText());
-            plan.setGoals(goals);
-            plan.setMotivationalQuote(planJson.path("motivationalQuote").asText());
-            plan.setTargetSteps(planJson.path("targetSteps").asInt());
-            plan.setTargetCalories(planJson.path("targetCalories").asInt());
-            plan.setRestAndRecovery(planJson.path("restAndRecovery").asText());
-            plan.setCreatedAt(LocalDateTime.now());
-            return plan;
-
+            return forUserAndDay(responseDecoder.readDailyPlan(aiResponse), userId, planDate);
         } catch (Exception e) {
             logError("Error processing daily plan response", e);
             return createDefaultDailyPlan(userId, planDate);
         }
     }
 
+    private DailyPlan processStreamedPlan(String userId, LocalDate planDate, JsonNode planJson) {
+        try {
+            return forUserAndDay(responseDecoder.readDailyPlan(planJson), userId, planDate);
+        } catch (Exception e) {
+            logError("Error processing streamed daily plan", e);
+            return createDefaultDailyPlan(userId, planDate);
+        }
+    }
+
+    // Identity fields come from the request, never from the model's answer
+    private DailyPlan forUserAndDay(DailyPlan plan, String userId, LocalDate planDate) {
+        plan.setId(null);
+        plan.setUserId(userId);
+        plan.setPlanDate(planDate);
+        plan.setCreatedAt(LocalDateTime.now());
+        plan.setUpdatedAt(null);
+        return plan;
+    }
+
     private DailyPlan createDefaultDailyPlan(String userId, LocalDate planDate) {
         List<DailyPlan.WorkoutPlan> defaultWorkouts = new ArrayList<>();
         
@@ -231,37 +206,36 @@ public class DailyPlanService {
         return prompt.toString();
     }
 
-    public List<DailyPlan> getUserPlans(String userId, LocalDate startDate, LocalDate endDate) {
+    public Flux<DailyPlan> getUserPlans(String userId, LocalDate startDate, LocalDate endDate) {
         if (startDate != null && endDate != null) {
             return dailyPlanRepository.findByUserIdAndPlanDateBetween(userId, startDate, endDate);
         }
         return dailyPlanRepository.findByUserId(userId);
     }
 
-    public Optional<DailyPlan> getPlanByDate(String userId, LocalDate planDate) {
+    public Mono<DailyPlan> getPlanByDate(String userId, LocalDate planDate) {
         return dailyPlanRepository.findByUserIdAndPlanDate(userId, planDate);
     }
 
     /**
      * Fetch an existing plan or generate a fresh one when missing (prevents 404s).
      */
-    public DailyPlan getOrGeneratePlanByDate(String userId, LocalDate planDate) {
-        return dailyPlanRepository.findByUserIdAndPlanDate(userId, planDate)
-                .orElseGet(() -> {
-                        DailyPlan generated = generateDailyPlan(userId, planDate)
-                                .onErrorReturn(createDefaultDailyPlan(userId, planDate))
-                            .block();
-                            return generated != null ? generated : createDefaultDailyPlan(userId, planDate);
-                });
+    public Mono<DailyPlan> getOrGeneratePlanByDate(String userId, LocalDate planDate) {
+        return generateDailyPlan(userId, planDate)
+                .onErrorReturn(createDefaultDailyPlan(userId, planDate))
+                .defaultIfEmpty(createDefaultDailyPlan(userId, planDate));
     }
 
     /**
      * Allow users/admins to update an existing plan or upsert if missing.
      */
-    public DailyPlan updatePlan(String userId, LocalDate planDate, DailyPlan request) {
-        DailyPlan plan = dailyPlanRepository.findByUserIdAndPlanDate(userId, planDate)
-            .orElse(createDefaultDailyPlan(userId, planDate));
+    public Mono<DailyPlan> updatePlan(String userId, LocalDate planDate, DailyPlan request) {
+        return dailyPlanRepository.findByUserIdAndPlanDate(userId, planDate)
+            .defaultIfEmpty(createDefaultDailyPlan(userId, planDate))
+            .flatMap(plan -> dailyPlanRepository.save(applyUpdate(plan, userId, planDate, request)));
+    }
 
+    private DailyPlan applyUpdate(DailyPlan plan, String userId, LocalDate planDate, DailyPlan request) {
         // Overwrite full sections when provided
         if (request.getMorningRoutine() != null) plan.setMorningRoutine(request.getMorningRoutine());
         if (request.getWorkouts() != null && !request.getWorkouts().isEmpty()) plan.setWorkouts(request.getWorkouts());
@@ -279,7 +253,6 @@ public class DailyPlanService {
             plan.setCreatedAt(LocalDateTime.now());
         }
         plan.setUpdatedAt(LocalDateTime.now());
-
-        return dailyPlanRepository.save(plan);
+        return plan;
     }
 }
@@ -0,0 +1,13 @@
+package com.fitness.aiservice.service;
+
+/**
+ * Scheduling lane for a Gemini call; lower ordinal is served first.
+ */
+public enum GeminiPriority {
+    // A user is waiting on the response (on-demand plan fetch)
+    INTERACTIVE,
+    // Asynchronous work triggered by user actions (activity recommendations)
+    BACKGROUND,
+    // Bulk jobs that can run whenever quota is spare (nightly plan pre-generation)
+    BATCH
+}
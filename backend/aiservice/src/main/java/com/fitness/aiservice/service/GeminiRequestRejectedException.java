@@ -0,0 +1,11 @@
+package com.fitness.aiservice.service;
+
+/**
+ * Raised when {@link GeminiRequestScheduler} sheds a request instead of sending it to Gemini.
+ */
+public class GeminiRequestRejectedException extends RuntimeException {
+
+    public GeminiRequestRejectedException(String message) {
+        super(message);
+    }
+}
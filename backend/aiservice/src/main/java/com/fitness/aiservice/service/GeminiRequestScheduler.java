@@ -0,0 +1,256 @@
+package com.fitness.aiservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single gate for all Gemini calls. A token bucket sized to the API quota decides when the next
+ * call may start; waiting calls are held in one queue per {@link GeminiPriority} and the highest
+ * non-empty lane is always served first. A call that has waited past its lane's deadline is shed
+ * rather than sent late, and a 429 from Gemini empties the bucket and pauses dispatch. At most
+ * {@code max-in-flight} calls run at once, so a slow Gemini holds calls in their lanes instead of
+ * overflowing the bulkhead behind this gate.
+ */
+@Component
+public class GeminiRequestScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiRequestScheduler.class);
+    private static final long TICK_MS = 25;
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final int laneCapacity;
+    private final int maxInFlight;
+    private final Duration pauseOn429;
+    private final Map<GeminiPriority, Duration> maxWait = new EnumMap<>(GeminiPriority.class);
+
+    private final Map<GeminiPriority, Queue<Pending<?>>> lanes = new EnumMap<>(GeminiPriority.class);
+    private final Map<GeminiPriority, AtomicInteger> depth = new EnumMap<>(GeminiPriority.class);
+    private final Map<GeminiPriority, Timer> waitTimers = new EnumMap<>(GeminiPriority.class);
+    private final Map<GeminiPriority, Counter> shedExpired = new EnumMap<>(GeminiPriority.class);
+    private final Map<GeminiPriority, Counter> shedFull = new EnumMap<>(GeminiPriority.class);
+    private final Counter throttled;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "gemini-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only touched on the dispatcher thread
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private volatile long pausedUntil;
+
+    public GeminiRequestScheduler(MeterRegistry meterRegistry,
+                                  @Value("${gemini.scheduler.requests-per-minute:60}") double requestsPerMinute,
+                                  @Value("${gemini.scheduler.burst:10}") int burst,
+                                  @Value("${gemini.scheduler.lane-capacity:500}") int laneCapacity,
+                                  @Value("${gemini.scheduler.max-in-flight:16}") int maxInFlight,
+                                  @Value("${gemini.scheduler.max-wait.interactive:10s}") Duration interactiveMaxWait,
+                                  @Value("${gemini.scheduler.max-wait.background:2m}") Duration backgroundMaxWait,
+                                  @Value("${gemini.scheduler.max-wait.batch:10m}") Duration batchMaxWait,
+                                  @Value("${gemini.scheduler.pause-on-429:30s}") Duration pauseOn429) {
+        this.tokensPerNano = requestsPerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.laneCapacity = laneCapacity;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.pauseOn429 = pauseOn429;
+        maxWait.put(GeminiPriority.INTERACTIVE, interactiveMaxWait);
+        maxWait.put(GeminiPriority.BACKGROUND, backgroundMaxWait);
+        maxWait.put(GeminiPriority.BATCH, batchMaxWait);
+
+        for (GeminiPriority priority : GeminiPriority.values()) {
+            String lane = priority.name().toLowerCase();
+            lanes.put(priority, new ConcurrentLinkedQueue<>());
+            AtomicInteger laneDepth = new AtomicInteger();
+            depth.put(priority, laneDepth);
+            Gauge.builder("gemini.scheduler.queue.depth", laneDepth, AtomicInteger::get)
+                    .tag("lane", lane).register(meterRegistry);
+            waitTimers.put(priority, Timer.builder("gemini.scheduler.wait")
+                    .description("Time a Gemini call spent queued before it was sent")
+                    .tag("lane", lane).register(meterRegistry));
+            shedExpired.put(priority, Counter.builder("gemini.scheduler.shed")
+                    .tag("lane", lane).tag("reason", "deadline").register(meterRegistry));
+            shedFull.put(priority, Counter.builder("gemini.scheduler.shed")
+                    .tag("lane", lane).tag("reason", "queue_full").register(meterRegistry));
+        }
+        this.throttled = Counter.builder("gemini.scheduler.throttled")
+                .description("429 responses from Gemini")
+                .register(meterRegistry);
+        Gauge.builder("gemini.scheduler.in.flight", inFlight, AtomicInteger::get)
+                .description("Gemini calls started by the scheduler and not yet finished")
+                .register(meterRegistry);
+
+        dispatcher.scheduleWithFixedDelay(this::dispatch, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues {@code call} in the given lane; it is subscribed once a token is available.
+     */
+    public <T> Mono<T> submit(GeminiPriority priority, Mono<T> call) {
+        return Mono.create(sink -> {
+            AtomicInteger laneDepth = depth.get(priority);
+            if (laneDepth.incrementAndGet() > laneCapacity) {
+                laneDepth.decrementAndGet();
+                shedFull.get(priority).increment();
+                sink.error(new GeminiRequestRejectedException("Gemini " + priority + " queue is full"));
+                return;
+            }
+            long now = System.nanoTime();
+            Pending<T> pending = new Pending<>(priority, call, sink, now, now + maxWait.get(priority).toNanos());
+            sink.onCancel(pending::cancel);
+            lanes.get(priority).add(pending);
+            dispatcher.execute(this::dispatch);
+        });
+    }
+
+    private void dispatch() {
+        try {
+            long now = System.nanoTime();
+            shedExpired(now);
+            if (now < pausedUntil) {
+                return;
+            }
+            refill(now);
+            while (tokens >= 1 && inFlight.get() < maxInFlight) {
+                Pending<?> next = poll();
+                if (next == null) {
+                    return;
+                }
+                tokens -= 1;
+                start(next);
+            }
+        } catch (Exception e) {
+            log.error("Gemini scheduler dispatch failed", e);
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+
+    private Pending<?> poll() {
+        for (GeminiPriority priority : GeminiPriority.values()) {
+            Pending<?> pending;
+            while ((pending = lanes.get(priority).poll()) != null) {
+                depth.get(priority).decrementAndGet();
+                if (!pending.cancelled) {
+                    return pending;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void shedExpired(long now) {
+        for (GeminiPriority priority : GeminiPriority.values()) {
+            for (Iterator<Pending<?>> it = lanes.get(priority).iterator(); it.hasNext(); ) {
+                Pending<?> pending = it.next();
+                if (pending.cancelled || now > pending.deadline) {
+                    it.remove();
+                    depth.get(priority).decrementAndGet();
+                    if (!pending.cancelled) {
+                        shedExpired.get(priority).increment();
+                        pending.sink.error(new GeminiRequestRejectedException(
+                                "Gemini " + priority + " request waited longer than " + maxWait.get(priority)));
+                    }
+                }
+            }
+        }
+    }
+
+    private <T> void start(Pending<T> pending) {
+        // Own clock read: the call may have been queued after this dispatch pass began
+        waitTimers.get(pending.priority).record(System.nanoTime() - pending.enqueuedAt, TimeUnit.NANOSECONDS);
+        inFlight.incrementAndGet();
+        pending.subscription = pending.call
+                .doOnError(WebClientResponseException.TooManyRequests.class, this::onThrottled)
+                .doFinally(signal -> onFinished())
+                .subscribe(pending.sink::success, pending.sink::error, pending.sink::success);
+        if (pending.cancelled) {
+            pending.subscription.dispose();
+        }
+    }
+
+    // A slot freed up: let the next queued call in without waiting for the tick
+    private void onFinished() {
+        inFlight.decrementAndGet();
+        if (!dispatcher.isShutdown()) {
+            dispatcher.execute(this::dispatch);
+        }
+    }
+
+    private void onThrottled(WebClientResponseException.TooManyRequests e) {
+        throttled.increment();
+        Duration pause = pauseOn429;
+        String retryAfter = e.getHeaders().getFirst("Retry-After");
+        if (retryAfter != null) {
+            try {
+                pause = Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException ignored) {
+                // HTTP-date form; keep the configured pause
+            }
+        }
+        log.warn("Gemini returned 429, pausing dispatch for {}", pause);
+        pausedUntil = System.nanoTime() + pause.toNanos();
+        dispatcher.execute(() -> tokens = 0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    private static final class Pending<T> {
+        private final GeminiPriority priority;
+        private final Mono<T> call;
+        private final MonoSink<T> sink;
+        private final long enqueuedAt;
+        private final long deadline;
+        private volatile boolean cancelled;
+        private volatile Disposable subscription;
+
+        private Pending(GeminiPriority priority, Mono<T> call, MonoSink<T> sink, long enqueuedAt, long deadline) {
+            this.priority = priority;
+            this.call = call;
+            this.sink = sink;
+            this.enqueuedAt = enqueuedAt;
+            this.deadline = deadline;
+        }
+
+        // The caller went away: drop it from the queue, or stop the call if it already started
+        private void cancel() {
+            cancelled = true;
+            Disposable started = subscription;
+            if (started != null) {
+                started.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.model.GeminiCacheEntry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content-addressed cache of raw Gemini responses. Prompts are whitespace-normalised and hashed,
+ * so prompts that differ only in formatting share an entry. An in-memory tier is always used
+ * when enabled; a MongoDB tier can be added so entries survive restarts and are shared by replicas.
+ */
+@Component
+public class GeminiResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiResponseCache.class);
+
+    private final boolean enabled;
+    private final boolean mongoEnabled;
+    private final Duration ttl;
+    private final MongoTemplate mongoTemplate;
+    private final Cache<String, String> memory;
+
+    private final Counter memoryHits;
+    private final Counter mongoHits;
+    private final Counter misses;
+    private final Counter latencySaved;
+    private final Timer geminiLatency;
+
+    public GeminiResponseCache(MongoTemplate mongoTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${gemini.cache.enabled:true}") boolean enabled,
+                               @Value("${gemini.cache.max-size:2000}") long maxSize,
+                               @Value("${gemini.cache.ttl:6h}") Duration ttl,
+                               @Value("${gemini.cache.mongo-enabled:false}") boolean mongoEnabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.mongoEnabled = enabled && mongoEnabled;
+        this.ttl = ttl;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "geminiResponses");
+
+        this.memoryHits = Counter.builder("gemini.cache.requests").tag("result", "hit_memory").register(meterRegistry);
+        this.mongoHits = Counter.builder("gemini.cache.requests").tag("result", "hit_mongo").register(meterRegistry);
+        this.misses = Counter.builder("gemini.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.latencySaved = Counter.builder("gemini.cache.latency.saved")
+                .description("Estimated Gemini latency avoided by cache hits (mean uncached call time per hit)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.geminiLatency = Timer.builder("gemini.request.duration")
+                .description("Latency of uncached Gemini calls")
+                .register(meterRegistry);
+    }
+
+    public Mono<String> getOrCompute(String prompt, Mono<String> gemini) {
+        if (!enabled) {
+            return gemini;
+        }
+        String key = fingerprint(prompt);
+
+        String cached = memory.getIfPresent(key);
+        if (cached != null) {
+            recordHit(memoryHits);
+            return Mono.just(cached);
+        }
+
+        return findPersisted(key)
+                .doOnNext(response -> {
+                    recordHit(mongoHits);
+                    memory.put(key, response);
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    misses.increment();
+                    long started = System.nanoTime();
+                    return gemini.doOnNext(response -> {
+                        geminiLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                        store(key, response);
+                    });
+                }));
+    }
+
+    static String normalise(String prompt) {
+        return prompt == null ? "" : prompt.strip().replaceAll("\\s+", " ");
+    }
+
+    static String fingerprint(String prompt) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(normalise(prompt).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void recordHit(Counter tier) {
+        tier.increment();
+        if (geminiLatency.count() > 0) {
+            latencySaved.increment(geminiLatency.mean(TimeUnit.SECONDS));
+        }
+    }
+
+    private void store(String key, String response) {
+        // Error payloads and safety-blocked answers have no candidates and must not be replayed
+        if (response == null || !response.contains("\"candidates\"")) {
+            return;
+        }
+        memory.put(key, response);
+        if (mongoEnabled) {
+            Mono.fromRunnable(() -> mongoTemplate.save(new GeminiCacheEntry(key, response, LocalDateTime.now())))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .subscribe(null, e -> log.warn("Failed to persist Gemini cache entry: {}", e.getMessage()));
+        }
+    }
+
+    private Mono<String> findPersisted(String key) {
+        if (!mongoEnabled) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> mongoTemplate.findById(key, GeminiCacheEntry.class))
+                .subscribeOn(Schedulers.boundedElastic())
+                // The TTL monitor only runs once a minute, so check age here as well
+                .filter(entry -> entry.getCreatedAt() != null && entry.getCreatedAt().isAfter(LocalDateTime.now().minus(ttl)))
+                .map(GeminiCacheEntry::getResponse)
+                .onErrorResume(e -> {
+                    log.warn("Gemini cache lookup failed, calling Gemini: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureTtlIndex() {
+        if (!mongoEnabled) {
+            return;
+        }
+        try {
+            mongoTemplate.indexOps(GeminiCacheEntry.class)
+                    .createIndex(new Index().on("createdAt", Sort.Direction.ASC).named("createdAt_ttl").expire(ttl));
+        } catch (Exception e) {
+            log.warn("Could not ensure TTL index on gemini_response_cache: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.fitness.aiservice.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.deser.DeserializationProblemHandler;
+import com.fasterxml.jackson.databind.deser.ValueInstantiator;
+import com.fitness.aiservice.dto.GeminiRecommendation;
+import com.fitness.aiservice.model.DailyPlan;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Decodes {@code generateContent} responses whose answer is a JSON document. The envelope is
+ * walked with a streaming parser straight to {@code candidates[0].content.parts[0].text}; the
+ * answer is then bound from the parser's own character buffer, between the first '{' and the
+ * last '}', so the ```json fence never needs stripping and no tree or intermediate string is built.
+ * A field of the wrong type degrades to an empty value instead of failing the whole answer.
+ */
+@Component
+public class GeminiResponseDecoder {
+
+    private final JsonFactory jsonFactory;
+    private final ObjectReader dailyPlanReader;
+    private final ObjectReader recommendationReader;
+
+    public GeminiResponseDecoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.dailyPlanReader = objectMapper.readerFor(DailyPlan.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .withHandler(new LenientFieldHandler());
+        this.recommendationReader = objectMapper.readerFor(GeminiRecommendation.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .withHandler(new LenientFieldHandler());
+    }
+
+    public DailyPlan readDailyPlan(String response) throws IOException {
+        return decode(response, dailyPlanReader);
+    }
+
+    // Plans assembled from a streamed response
+    public DailyPlan readDailyPlan(JsonNode planJson) throws IOException {
+        return dailyPlanReader.readValue(planJson);
+    }
+
+    public GeminiRecommendation readRecommendation(String response) throws IOException {
+        return decode(response, recommendationReader);
+    }
+
+    private <T> T decode(String response, ObjectReader reader) throws IOException {
+        try (JsonParser envelope = jsonFactory.createParser(response)) {
+            if (envelope.nextToken() != JsonToken.START_OBJECT
+                    || !seekField(envelope, "candidates") || envelope.currentToken() != JsonToken.START_ARRAY
+                    || envelope.nextToken() != JsonToken.START_OBJECT
+                    || !seekField(envelope, "content") || envelope.currentToken() != JsonToken.START_OBJECT
+                    || !seekField(envelope, "parts") || envelope.currentToken() != JsonToken.START_ARRAY
+                    || envelope.nextToken() != JsonToken.START_OBJECT
+                    || !seekField(envelope, "text") || envelope.currentToken() != JsonToken.VALUE_STRING) {
+                throw new IOException("Gemini response has no candidate text");
+            }
+
+            // Valid only until the envelope parser advances
+            char[] text = envelope.getTextCharacters();
+            int from = envelope.getTextOffset();
+            int to = from + envelope.getTextLength();
+            int start = indexOf(text, from, to, '{');
+            int end = lastIndexOf(text, from, to, '}');
+            if (start < 0 || end < start) {
+                throw new IOException("Gemini candidate text contains no JSON object");
+            }
+            try (JsonParser answer = jsonFactory.createParser(text, start, end - start + 1)) {
+                return reader.readValue(answer);
+            }
+        }
+    }
+
+    // Leaves the parser on the value of the named field of the current object
+    private static boolean seekField(JsonParser parser, String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (name.equals(field)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static int indexOf(char[] chars, int from, int to, char c) {
+        for (int i = from; i < to; i++) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(char[] chars, int from, int to, char c) {
+        for (int i = to - 1; i >= from; i--) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Per-field fallbacks matching what {@code JsonNode.asText()/asInt()} used to give:
+     * "" for a string that is an object or array, 0 for an unparseable number (thousands
+     * separators are accepted), an empty list for a non-array, and an empty object for a
+     * string where an object was expected.
+     */
+    private static final class LenientFieldHandler extends DeserializationProblemHandler {
+
+        @Override
+        public Object handleUnexpectedToken(DeserializationContext ctxt, JavaType targetType, JsonToken t,
+                                            JsonParser p, String failureMsg) throws IOException {
+            p.skipChildren();
+            Class<?> raw = targetType.getRawClass();
+            if (raw == String.class) {
+                return "";
+            }
+            if (raw == Integer.class || raw == int.class) {
+                return 0;
+            }
+            if (Collection.class.isAssignableFrom(raw)) {
+                return new ArrayList<>();
+            }
+            return null;
+        }
+
+        @Override
+        public Object handleWeirdStringValue(DeserializationContext ctxt, Class<?> targetType,
+                                             String valueToConvert, String failureMsg) {
+            if (targetType == Integer.class || targetType == int.class) {
+                try {
+                    return Integer.parseInt(valueToConvert.replaceAll("[,_\\s]", ""));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Object handleMissingInstantiator(DeserializationContext ctxt, Class<?> instClass,
+                                                ValueInstantiator valueInsts, JsonParser p, String msg)
+                throws IOException {
+            if (!valueInsts.canCreateUsingDefault()) {
+                return NOT_HANDLED;
+            }
+            p.skipChildren();
+            return valueInsts.createUsingDefault(ctxt);
+        }
+    }
+}
@@ -1,23 +1,51 @@
 package com.fitness.aiservice.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class GeminiService {
 
         private static final Logger log = LoggerFactory.getLogger(GeminiService.class);
+        private static final String GENERATE_CONTENT = ":generateContent";
+        private static final ParameterizedTypeReference<ServerSentEvent<JsonNode>> SSE_CHUNK =
+                new ParameterizedTypeReference<>() {};
 
         private final WebClient webClient;
+        private final GeminiResponseCache responseCache;
+        private final GeminiRequestScheduler requestScheduler;
+        private final CircuitBreaker circuitBreaker;
+        private final Bulkhead bulkhead;
+        private final TimeLimiter timeLimiter;
+        private final ObjectMapper objectMapper;
+        private final Timer firstSectionLatency;
+        private final Timer streamLatency;
 
         @Value("${gemini.api.url}")
         private String geminiApiUrl;
@@ -25,36 +53,148 @@ public class GeminiService {
         @Value("${gemini.api.key}")
         private String geminiApiKey;
 
-        public GeminiService(@Qualifier("geminiWebClient") WebClient webClient) {
+        @Value("${gemini.streaming.enabled:true}")
+        private boolean streamingEnabled;
+
+        public GeminiService(@Qualifier("geminiWebClient") WebClient webClient, GeminiResponseCache responseCache,
+                             GeminiRequestScheduler requestScheduler,
+                             @Qualifier("geminiCircuitBreaker") CircuitBreaker circuitBreaker,
+                             @Qualifier("geminiBulkhead") Bulkhead bulkhead,
+                             @Qualifier("geminiTimeLimiter") TimeLimiter timeLimiter,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
                 this.webClient = webClient;
+                this.responseCache = responseCache;
+                this.requestScheduler = requestScheduler;
+                this.circuitBreaker = circuitBreaker;
+                this.bulkhead = bulkhead;
+                this.timeLimiter = timeLimiter;
+                this.objectMapper = objectMapper;
+                this.firstSectionLatency = Timer.builder("gemini.stream.first.section")
+                        .description("Time from sending a streamed Gemini request to its first complete top-level JSON field")
+                        .register(meterRegistry);
+                this.streamLatency = Timer.builder("gemini.stream.duration")
+                        .description("Time to receive and parse a complete streamed Gemini response")
+                        .register(meterRegistry);
         }
 
         public Mono<String> getAnswer(String question) {
+                return getAnswer(question, GeminiPriority.INTERACTIVE);
+        }
+
+        /**
+         * Cache hits return immediately; misses wait in the scheduler lane for {@code priority}
+         * until the shared Gemini quota allows the call.
+         */
+        public Mono<String> getAnswer(String question, GeminiPriority priority) {
 
-                if (!StringUtils.hasText(geminiApiUrl) || !StringUtils.hasText(geminiApiKey)) {
+                if (!isConfigured()) {
                         log.error("Gemini API is NOT configured - URL or Key missing");
                         return Mono.error(new IllegalStateException("Gemini API credentials missing"));
                 }
                 
                 log.debug("Gemini API configured - Sending request");
 
+                Mono<String> call = webClient.post()
+                        .uri(geminiApiUrl + "?key=" + geminiApiKey)
+                        .header("Content-Type", "application/json")
+                        .bodyValue(requestBody(question))
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .doOnSuccess(response -> log.debug("Gemini API Response received, length: {}", response.length()));
+
+                return responseCache.getOrCompute(question, admit(priority, call));
+        }
+
+        // Streaming needs the streamGenerateContent variant of the configured generateContent URL
+        public boolean isStreamingEnabled() {
+                return streamingEnabled && isConfigured() && geminiApiUrl.contains(GENERATE_CONTENT);
+        }
+
+        /**
+         * Streams the answer over SSE and parses the JSON object the model writes as the chunks
+         * arrive, so the response is never held as a whole string. Streamed answers skip the
+         * response cache: the prompts that use this (daily plans) embed the user and date and
+         * practically never repeat.
+         */
+        public Mono<JsonNode> streamJson(String question, GeminiPriority priority) {
+                if (!isStreamingEnabled()) {
+                        return Mono.error(new IllegalStateException("Gemini streaming is not available"));
+                }
+                String streamUrl = geminiApiUrl.replace(GENERATE_CONTENT, ":streamGenerateContent")
+                        + "?alt=sse&key=" + geminiApiKey;
+
+                Mono<JsonNode> call = Mono.defer(() -> {
+                        long started = System.nanoTime();
+                        AtomicBoolean firstSection = new AtomicBoolean();
+                        StreamingJsonAssembler assembler;
+                        try {
+                                assembler = new StreamingJsonAssembler(objectMapper, section -> {
+                                        if (firstSection.compareAndSet(false, true)) {
+                                                firstSectionLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                                        }
+                                });
+                        } catch (IOException e) {
+                                return Mono.error(e);
+                        }
+                        return webClient.post()
+                                .uri(streamUrl)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.TEXT_EVENT_STREAM)
+                                .bodyValue(requestBody(question))
+                                .retrieve()
+                                .bodyToFlux(SSE_CHUNK)
+                                .doOnNext(event -> feedChunk(assembler, event.data()))
+                                .then(Mono.fromCallable(assembler::finish))
+                                .doOnSuccess(plan -> streamLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+                });
+
+                return admit(priority, call);
+        }
+
+        private void feedChunk(StreamingJsonAssembler assembler, JsonNode chunk) {
+                if (chunk == null) {
+                        return;
+                }
+                try {
+                        for (JsonNode part : chunk.path("candidates").path(0).path("content").path("parts")) {
+                                assembler.feed(part.path("text").asText());
+                        }
+                } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                }
+        }
+
+        // Time limit, bulkhead and breaker around the HTTP call, then a slot from the shared scheduler
+        private <T> Mono<T> admit(GeminiPriority priority, Mono<T> call) {
+                Mono<T> guarded = call
+                        .transformDeferred(TimeLimiterOperator.of(timeLimiter))
+                        .transformDeferred(BulkheadOperator.of(bulkhead))
+                        .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                        .doOnError(e -> log.error("Gemini HTTP Error: {}", e.getMessage()));
+
+                // While the breaker is open, fail before taking a scheduler slot instead of queueing doomed calls
+                return Mono.defer(() -> isCircuitOpen()
+                        ? Mono.error(CallNotPermittedException.createCallNotPermittedException(circuitBreaker))
+                        : requestScheduler.submit(priority, guarded));
+        }
 
-                Map<String, Object> requestBody = Map.of(
+        private boolean isConfigured() {
+                return StringUtils.hasText(geminiApiUrl) && StringUtils.hasText(geminiApiKey);
+        }
+
+        private static Map<String, Object> requestBody(String question) {
+                return Map.of(
                         "contents", new Object[]{
                                 Map.of("parts", new Object[]{
                                         Map.of("text", question)
                                 })
                         }
                 );
+        }
 
-                return webClient.post()
-                        .uri(geminiApiUrl + "?key=" + geminiApiKey)
-                        .header("Content-Type", "application/json")
-                        .bodyValue((requestBody != null) ? requestBody : Map.of())
-                        .retrieve()
-                        .bodyToMono(String.class)
-                        .timeout(Duration.ofSeconds(30))
-                        .doOnError(e -> log.error("Gemini HTTP Error: {}", e.getMessage()))
-                        .doOnSuccess(response -> log.debug("Gemini API Response received, length: {}", response.length()));
+        private boolean isCircuitOpen() {
+                CircuitBreaker.State state = circuitBreaker.getState();
+                return state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN;
         }
 }
@@ -0,0 +1,99 @@
+package com.fitness.aiservice.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Builds the JSON object a model writes as text, one streamed text chunk at a time. Chunks go
+ * straight into Jackson's non-blocking parser; anything before the first '{' (a ```json fence)
+ * and after the matching '}' is ignored, so no fence stripping or full-text copy is needed.
+ * Each top-level field becomes available as soon as its value closes.
+ */
+final class StreamingJsonAssembler {
+
+    private final ObjectMapper mapper;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final ObjectNode result;
+    private final Consumer<String> onSection;
+
+    private boolean started;
+    private boolean complete;
+    private String field;
+    private TokenBuffer value;
+    private int valueDepth;
+
+    StreamingJsonAssembler(ObjectMapper mapper, Consumer<String> onSection) throws IOException {
+        this.mapper = mapper;
+        this.parser = mapper.getFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.result = mapper.createObjectNode();
+        this.onSection = onSection;
+    }
+
+    void feed(String text) throws IOException {
+        if (complete || text == null || text.isEmpty()) {
+            return;
+        }
+        if (!started) {
+            int start = text.indexOf('{');
+            if (start < 0) {
+                return;
+            }
+            text = text.substring(start);
+            started = true;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+        drain();
+    }
+
+    JsonNode finish() throws IOException {
+        if (!complete) {
+            throw new IOException("Streamed JSON ended before the top-level object was closed");
+        }
+        return result;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!complete && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (value != null) {
+                value.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    valueDepth++;
+                } else if (token.isStructEnd()) {
+                    valueDepth--;
+                }
+                if (valueDepth == 0) {
+                    completeField();
+                }
+            } else if (token == JsonToken.FIELD_NAME) {
+                field = parser.currentName();
+                value = new TokenBuffer(parser);
+                valueDepth = 0;
+            } else if (token == JsonToken.END_OBJECT && parser.getParsingContext().inRoot()) {
+                complete = true;
+            } else if (token != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object but found " + token);
+            }
+        }
+    }
+
+    private void completeField() throws IOException {
+        try (JsonParser buffered = value.asParser(mapper)) {
+            result.set(field, mapper.readTree(buffered));
+        }
+        value = null;
+        onSection.accept(field);
+    }
+}
@@ -0,0 +1,87 @@
+package com.fitness.aiservice.service;
+
+import com.fitness.aiservice.dto.UserProfile;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * User profiles fetched through the gateway, shared by recommendation and daily plan generation.
+ * Concurrent lookups for one user share a single gateway call. Entries older than the refresh
+ * window are reloaded in the background while the cached profile keeps being served; failed
+ * lookups are not cached.
+ */
+@Component
+public class UserProfileClient {
+
+    private static final Logger log = LoggerFactory.getLogger(UserProfileClient.class);
+
+    private final WebClient apiGatewayWebClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final TimeLimiter timeLimiter;
+    private final AsyncLoadingCache<String, UserProfile> profiles;
+
+    public UserProfileClient(WebClient apiGatewayWebClient,
+                             @Qualifier("userServiceCircuitBreaker") CircuitBreaker circuitBreaker,
+                             @Qualifier("userServiceBulkhead") Bulkhead bulkhead,
+                             @Qualifier("userServiceTimeLimiter") TimeLimiter timeLimiter,
+                             MeterRegistry meterRegistry,
+                             @Value("${USER_PROFILE_CACHE_TTL:15m}") Duration ttl,
+                             @Value("${USER_PROFILE_CACHE_REFRESH:5m}") Duration refreshAfter,
+                             @Value("${USER_PROFILE_CACHE_MAX_SIZE:10000}") long maxSize) {
+        this.apiGatewayWebClient = apiGatewayWebClient;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.timeLimiter = timeLimiter;
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .refreshAfterWrite(refreshAfter)
+                .recordStats()
+                .buildAsync((userId, executor) -> fetch(userId).toFuture());
+        CaffeineCacheMetrics.monitor(meterRegistry, profiles, "userProfiles");
+    }
+
+    public Mono<UserProfile> getProfile(String userId) {
+        // One subscriber cancelling must not cancel the load other callers are waiting on
+        return Mono.fromFuture(() -> profiles.get(userId), true);
+    }
+
+    // Called when a user's profile changes so the next AI request sees the new values
+    public void evict(String userId) {
+        profiles.synchronous().invalidate(userId);
+    }
+
+    public void evictAll() {
+        profiles.synchronous().invalidateAll();
+    }
+
+    private Mono<UserProfile> fetch(String userId) {
+        return apiGatewayWebClient.get()
+                .uri("/users/{userId}", userId)
+                .header("X-Service-ID", "ai-service")
+                .retrieve()
+                .bodyToMono(UserProfile.class)
+                .transformDeferred(TimeLimiterOperator.of(timeLimiter))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .doOnError(e -> log.error("Error fetching user profile for {}: {}", userId, e.getMessage()));
+    }
+}
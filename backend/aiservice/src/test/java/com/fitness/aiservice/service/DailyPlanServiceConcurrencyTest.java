@@ -0,0 +1,128 @@
+package com.fitness.aiservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.aiservice.model.DailyPlan;
+import com.fitness.aiservice.repository.DailyPlanRepository;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Concurrent plan fetches against a stubbed Gemini. With the reactive read path no thread waits
+ * on Gemini, so every fetch has its Gemini call in flight at the same time instead of queueing
+ * behind a blocking pool.
+ */
+class DailyPlanServiceConcurrencyTest {
+
+    private static final Duration GEMINI_LATENCY = Duration.ofSeconds(1);
+    private static final String GEMINI_RESPONSE = """
+            {"candidates":[{"content":{"parts":[{"text":"{\\"morningRoutine\\":\\"Stretch\\",\\"workouts\\":[],\\"goals\\":[\\"Walk\\"],\\"targetSteps\\":9000,\\"targetCalories\\":2100}"}]}}]}
+            """;
+
+    private DailyPlanRepository repository;
+    private GeminiService geminiService;
+    private DailyPlanService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(DailyPlanRepository.class);
+        when(repository.findByUserIdAndPlanDate(anyString(), any(LocalDate.class))).thenReturn(Mono.empty());
+        when(repository.save(any(DailyPlan.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        geminiService = mock(GeminiService.class);
+        when(geminiService.getAnswer(anyString(), any(GeminiPriority.class)))
+                .thenAnswer(inv -> Mono.delay(GEMINI_LATENCY).thenReturn(GEMINI_RESPONSE));
+
+        WebClient gateway = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .body("{\"firstName\":\"Test\"}")
+                        .build()))
+                .build();
+
+        UserProfileClient userProfileClient = new UserProfileClient(gateway,
+                CircuitBreaker.ofDefaults("userService"),
+                Bulkhead.of("userService", BulkheadConfig.custom().maxConcurrentCalls(1000).build()),
+                TimeLimiter.ofDefaults("userService"),
+                new SimpleMeterRegistry(), Duration.ofMinutes(15), Duration.ofMinutes(5), 10_000);
+
+        service = new DailyPlanService(repository, geminiService, userProfileClient,
+                new GeminiResponseDecoder(new ObjectMapper()));
+    }
+
+    @Test
+    void concurrentFetchesForDifferentUsersOverlapGeminiCalls() throws InterruptedException {
+        int users = 500;
+        LocalDate date = LocalDate.now();
+
+        // Gemini answers only once every call has started, so this completes only if all of them overlap
+        Sinks.Empty<Void> geminiReleased = Sinks.empty();
+        CountDownLatch geminiCalls = new CountDownLatch(users);
+        Set<String> callingThreads = ConcurrentHashMap.newKeySet();
+        when(geminiService.getAnswer(anyString(), any(GeminiPriority.class))).thenAnswer(inv -> {
+            callingThreads.add(Thread.currentThread().getName());
+            geminiCalls.countDown();
+            return geminiReleased.asMono().thenReturn(GEMINI_RESPONSE);
+        });
+
+        CompletableFuture<List<DailyPlan>> plans = Flux.range(0, users)
+                .flatMap(i -> service.getOrGeneratePlanByDate("user-" + i, date), users)
+                .collectList()
+                .toFuture();
+
+        assertThat(geminiCalls.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(callingThreads).noneMatch(name -> name.startsWith("boundedElastic"));
+        geminiReleased.tryEmitEmpty();
+
+        assertThat(plans).succeedsWithin(Duration.ofSeconds(10))
+                .satisfies(list -> {
+                    assertThat(list).hasSize(users);
+                    assertThat(list).allSatisfy(plan -> assertThat(plan.getTargetSteps()).isEqualTo(9000));
+                });
+        verify(geminiService, times(users)).getAnswer(anyString(), any(GeminiPriority.class));
+    }
+
+    @Test
+    void concurrentFetchesForSameDayShareOneGeneration() {
+        LocalDate date = LocalDate.now();
+
+        List<DailyPlan> plans = Flux.range(0, 50)
+                .flatMap(i -> i % 2 == 0
+                        ? service.getOrGeneratePlanByDate("same-user", date)
+                        : service.generateDailyPlan("same-user", date), 50)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(plans).hasSize(50);
+        verify(geminiService, times(1)).getAnswer(anyString(), any(GeminiPriority.class));
+        verify(repository, times(1)).save(any(DailyPlan.class));
+    }
+}
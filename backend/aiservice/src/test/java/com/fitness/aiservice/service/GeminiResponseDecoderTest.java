@@ -0,0 +1,97 @@
+package com.fitness.aiservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.aiservice.dto.GeminiRecommendation;
+import com.fitness.aiservice.model.DailyPlan;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GeminiResponseDecoderTest {
+
+    private static final String PLAN = """
+            {"morningRoutine":"Stretch","workouts":[{"type":"Cardio","duration":30,"exercises":["Run"]}],\
+            "goals":["Walk"],"targetSteps":9000,"targetCalories":2100}""";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final GeminiResponseDecoder decoder = new GeminiResponseDecoder(mapper);
+
+    @Test
+    void readsFencedAnswer() throws IOException {
+        DailyPlan plan = decoder.readDailyPlan(envelope("```json\n" + PLAN + "\n```"));
+
+        assertThat(plan.getMorningRoutine()).isEqualTo("Stretch");
+        assertThat(plan.getWorkouts()).singleElement()
+                .satisfies(workout -> assertThat(workout.getExercises()).containsExactly("Run"));
+        assertThat(plan.getTargetSteps()).isEqualTo(9000);
+    }
+
+    @Test
+    void readsUnfencedAnswer() throws IOException {
+        DailyPlan plan = decoder.readDailyPlan(envelope(PLAN));
+
+        assertThat(plan.getGoals()).containsExactly("Walk");
+        assertThat(plan.getTargetCalories()).isEqualTo(2100);
+    }
+
+    @Test
+    void ignoresBracesInTextAfterTheAnswer() throws IOException {
+        DailyPlan plan = decoder.readDailyPlan(envelope("```json\n" + PLAN + "\n```\nEnjoy your day :}"));
+
+        assertThat(plan.getMorningRoutine()).isEqualTo("Stretch");
+        assertThat(plan.getTargetSteps()).isEqualTo(9000);
+    }
+
+    @Test
+    void rejectsResponseWithoutCandidate() {
+        assertThatThrownBy(() -> decoder.readDailyPlan("{\"candidates\":[]}"))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decoder.readRecommendation("{\"promptFeedback\":{\"blockReason\":\"SAFETY\"}}"))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decoder.readDailyPlan(envelope("I cannot help with that.")))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void degradesMistypedPlanFieldsInsteadOfFailing() throws IOException {
+        DailyPlan plan = decoder.readDailyPlan(envelope("""
+                {"morningRoutine":{"time":"7am"},"workouts":["Yoga",{"type":"Cardio","duration":"thirty"}],\
+                "goals":"Walk","targetSteps":"10,000","targetCalories":"lots","nutritionAdvice":"Eat well"}"""));
+
+        assertThat(plan.getMorningRoutine()).isEmpty();
+        assertThat(plan.getWorkouts()).hasSize(2);
+        assertThat(plan.getWorkouts().get(1).getType()).isEqualTo("Cardio");
+        assertThat(plan.getWorkouts().get(1).getDuration()).isZero();
+        assertThat(plan.getGoals()).isEmpty();
+        assertThat(plan.getTargetSteps()).isEqualTo(10_000);
+        assertThat(plan.getTargetCalories()).isZero();
+        assertThat(plan.getNutritionAdvice()).isEqualTo("Eat well");
+    }
+
+    @Test
+    void degradesMistypedRecommendationFieldsInsteadOfFailing() throws IOException {
+        GeminiRecommendation recommendation = decoder.readRecommendation(envelope("""
+                {"analysis":"Great run","improvements":[{"area":"Pace","recommendation":["Slow down"]}],\
+                "suggestions":{"workout":"Intervals"},"safety":["Hydrate"]}"""));
+
+        assertThat(recommendation.getAnalysis()).isNotNull();
+        assertThat(recommendation.getAnalysis().getOverall()).isNull();
+        assertThat(recommendation.getImprovements()).singleElement()
+                .satisfies(improvement -> {
+                    assertThat(improvement.getArea()).isEqualTo("Pace");
+                    assertThat(improvement.getRecommendation()).isEmpty();
+                });
+        assertThat(recommendation.getSuggestions()).isEmpty();
+        assertThat(recommendation.getSafety()).containsExactly("Hydrate");
+    }
+
+    private String envelope(String text) throws IOException {
+        return mapper.writeValueAsString(Map.of("candidates",
+                List.of(Map.of("content", Map.of("parts", List.of(Map.of("text", text)))))));
+    }
+}
@@ -0,0 +1,42 @@
+package com.fitness.aiservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingJsonAssemblerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void assemblesFencedObjectSplitAcrossChunks() throws IOException {
+        List<String> sections = new ArrayList<>();
+        StreamingJsonAssembler assembler = new StreamingJsonAssembler(mapper, sections::add);
+
+        for (String chunk : List.of("```json\n{\"morningRou", "tine\":\"Stretch\",\"workouts\":[{\"type\":\"Ca",
+                "rdio\",\"exercises\":[\"Run\"]}],\"targetSteps\":90", "00}\n```")) {
+            assembler.feed(chunk);
+        }
+        JsonNode plan = assembler.finish();
+
+        assertThat(sections).containsExactly("morningRoutine", "workouts", "targetSteps");
+        assertThat(plan.path("morningRoutine").asText()).isEqualTo("Stretch");
+        assertThat(plan.path("workouts").get(0).path("exercises").get(0).asText()).isEqualTo("Run");
+        assertThat(plan.path("targetSteps").asInt()).isEqualTo(9000);
+    }
+
+    @Test
+    void rejectsTruncatedStream() throws IOException {
+        StreamingJsonAssembler assembler = new StreamingJsonAssembler(mapper, section -> { });
+        assembler.feed("{\"morningRoutine\":\"Stretch\",\"goals\":[");
+
+        assertThatThrownBy(assembler::finish).isInstanceOf(IOException.class);
+    }
+}
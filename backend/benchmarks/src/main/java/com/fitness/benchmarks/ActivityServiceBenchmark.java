@@ -0,0 +1,84 @@
+package com.fitness.benchmarks;
+
+import com.fitness.activityservice.controller.ActivityController;
+import com.fitness.activityservice.dto.ActivityResponse;
+import com.fitness.activityservice.model.Activity;
+import com.fitness.activityservice.model.ActivityType;
+import com.fitness.activityservice.service.ActivityService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request work in the activity service: decoding the {@code X-User-ID} header on every
+ * endpoint and mapping each stored activity to its response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActivityServiceBenchmark {
+
+    private static final MethodHandle DECODE_USER_ID_HEADER = PrivateMethods.staticMethod(
+            ActivityController.class, "decodeUserIdHeader", String.class, String.class);
+    private static final MethodHandle MAP_TO_RESPONSE = PrivateMethods.instanceMethod(
+            ActivityService.class, "mapToResponse", ActivityResponse.class, Activity.class);
+
+    private String plainUserIdHeader;
+    private String encodedUserIdHeader;
+    private ActivityService activityService;
+    private Activity activity;
+
+    @Setup
+    public void setUp() {
+        plainUserIdHeader = "auth0|64f1c2e9a7b3d40012ab34cd";
+        // What the gateway forwards for ids that are not header-safe
+        encodedUserIdHeader = "b64_" + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("google-oauth2|108273645519283746501".getBytes(StandardCharsets.UTF_8));
+
+        activityService = PrivateMethods.withNullDependencies(ActivityService.class);
+        LocalDateTime start = LocalDateTime.of(2026, 3, 14, 7, 30);
+        activity = Activity.builder()
+                .id("65f2a1b4c3d2e1f0a9b8c7d6")
+                .userId(plainUserIdHeader)
+                .type(ActivityType.RUNNING)
+                .duration(45)
+                .caloriesBurned(410)
+                .startTime(start)
+                .additionalMetrics(Map.of("distanceKm", 7.9, "avgHeartRate", 148, "elevationGainM", 62))
+                .createdAt(start.plusMinutes(50))
+                .updatedAt(start.plusMinutes(50))
+                .build();
+    }
+
+    @Benchmark
+    public String decodeUserIdHeaderPlain() throws Throwable {
+        return (String) DECODE_USER_ID_HEADER.invokeExact(plainUserIdHeader);
+    }
+
+    @Benchmark
+    public String decodeUserIdHeaderEncoded() throws Throwable {
+        return (String) DECODE_USER_ID_HEADER.invokeExact(encodedUserIdHeader);
+    }
+
+    @Benchmark
+    public ActivityResponse mapToResponse() throws Throwable {
+        return (ActivityResponse) MAP_TO_RESPONSE.invokeExact(activityService, activity);
+    }
+}
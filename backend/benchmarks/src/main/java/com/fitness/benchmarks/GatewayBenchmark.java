@@ -0,0 +1,172 @@
+package com.fitness.benchmarks;
+
+import com.fittrack.gateway.security.GatewayIdentity;
+import com.fittrack.gateway.security.GatewayIdentityCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work the gateway does for every authenticated request to turn the JWT into authorities and
+ * forwarded identity headers. {@code perRequestClaimWalk} is the previous code path, kept here
+ * as the baseline: the authorities converter and JwtForwardingFilter each walked the role
+ * claims. {@code identitySnapshot} is the one-off cost per token now, and
+ * {@code identityCacheHit} plus {@code tokenHash} is what every further request with that
+ * token pays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GatewayBenchmark {
+
+    private String tokenValue;
+    private char[] tokenChars;
+    private Jwt jwt;
+    private GatewayIdentityCache identityCache;
+
+    @Setup
+    public void setUp() {
+        Instant issuedAt = Instant.now();
+        // Roughly the size of an Auth0 RS256 access token
+        tokenValue = "eyJhbGciOiJSUzI1NiIsInR5cCI6IkpXVCIsImtpZCI6ImJlbmNobWFyay1rZXkifQ."
+                + "x".repeat(600) + "." + "s".repeat(342);
+        tokenChars = tokenValue.toCharArray();
+        jwt = jwt(tokenValue, issuedAt);
+        identityCache = new GatewayIdentityCache(10_000, new SimpleMeterRegistry());
+        identityCache.resolve(jwt);
+    }
+
+    @Benchmark
+    public void perRequestClaimWalk(Blackhole bh) {
+        bh.consume(Legacy.authorities(jwt));
+        List<String> roles = Legacy.forwardedRoles(jwt);
+        bh.consume(Legacy.encodeHeaderValue(jwt.getSubject()));
+        String email = jwt.getClaimAsString("email");
+        bh.consume(email == null ? "" : email);
+        bh.consume(roles.isEmpty() ? null : roles.get(0));
+    }
+
+    @Benchmark
+    public GatewayIdentity identitySnapshot() {
+        return GatewayIdentity.from(jwt);
+    }
+
+    @Benchmark
+    public GatewayIdentity identityCacheHit() {
+        return identityCache.resolve(jwt);
+    }
+
+    @Benchmark
+    public int tokenHash() {
+        // A freshly decoded token string has no cached hash, so a real lookup also pays this
+        return new String(tokenChars).hashCode();
+    }
+
+    private static Jwt jwt(String tokenValue, Instant issuedAt) {
+        return Jwt.withTokenValue(tokenValue)
+                .header("alg", "RS256")
+                .header("kid", "benchmark-key")
+                .subject("auth0|64f1c2e9a7b3d40012ab34cd")
+                .issuer("https://fittrack.eu.auth0.com/")
+                .audience(List.of("https://fittrack-api"))
+                .issuedAt(issuedAt)
+                .expiresAt(issuedAt.plusSeconds(86_400))
+                .claim("email", "runner.example@fittrack.app")
+                .claim("https://fitness-app/roles", List.of("user", "admin"))
+                .claim("permissions", List.of("read:activities", "write:activities", "read:plans"))
+                .build();
+    }
+
+    /** The claim handling SecurityConfig and JwtForwardingFilter each did before GatewayIdentity. */
+    private static final class Legacy {
+
+        static Collection<GrantedAuthority> authorities(Jwt jwt) {
+            List<String> roles = new ArrayList<>();
+            roles.addAll(claim(jwt, "https://fitness-app/roles"));
+            roles.addAll(claim(jwt, "roles"));
+            roles.addAll(claim(jwt, "fitness_auth/roles"));
+            roles.addAll(claim(jwt, "https://fitness.app/roles"));
+            roles.addAll(claim(jwt, "https://fittrack.app/roles"));
+            List<String> permissions = claim(jwt, "permissions");
+
+            LinkedHashSet<GrantedAuthority> authorities = new LinkedHashSet<>();
+            for (String role : roles) {
+                if (role == null || role.isBlank()) {
+                    continue;
+                }
+                authorities.add(new SimpleGrantedAuthority("ROLE_" + role.trim().toUpperCase(Locale.ROOT)));
+            }
+            for (String permission : permissions) {
+                if (permission == null || permission.isBlank()) {
+                    continue;
+                }
+                authorities.add(new SimpleGrantedAuthority("PERMISSION_" + permission.trim()));
+            }
+            return authorities;
+        }
+
+        static List<String> forwardedRoles(Jwt jwt) {
+            List<String> roles = new ArrayList<>();
+            roles.addAll(claim(jwt, "https://fitness-app/roles"));
+            roles.addAll(claim(jwt, "roles"));
+            roles.addAll(claim(jwt, "fitness_auth/roles"));
+            return roles;
+        }
+
+        static String encodeHeaderValue(String value) {
+            if (value == null || value.isBlank()) {
+                return "";
+            }
+            return "b64_" + Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static List<String> claim(Jwt jwt, String claimName) {
+            Object value = jwt.getClaim(claimName);
+            if (value == null) {
+                return List.of();
+            }
+            if (value instanceof String s) {
+                s = s.trim();
+                return s.isEmpty() ? List.of() : List.of(s);
+            }
+            if (value instanceof Collection<?> collection) {
+                List<String> out = new ArrayList<>(collection.size());
+                for (Object o : collection) {
+                    String s = Objects.toString(o, "").trim();
+                    if (o != null && !s.isEmpty()) {
+                        out.add(s);
+                    }
+                }
+                return out;
+            }
+            String s = Objects.toString(value, "").trim();
+            return s.isEmpty() ? List.of() : List.of(s);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.fitness.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.aiservice.dto.GeminiRecommendation;
+import com.fitness.aiservice.model.DailyPlan;
+import com.fitness.aiservice.service.GeminiResponseDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of representative generateContent responses in the AI service: the previous
+ * readTree + regex + readTree path, kept here as the baseline, against {@link GeminiResponseDecoder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeminiResponseDecoderBenchmark {
+
+    private static final String PLAN_JSON = """
+            {
+              "morningRoutine": "10 minutes of mobility work: cat-cow, hip circles, thoracic rotations and a short walk outside.",
+              "workouts": [
+                {"time": "07:00", "type": "Cardio", "duration": 35, "intensity": "Moderate",
+                 "description": "Zone 2 run keeping heart rate between 130 and 145 bpm.",
+                 "exercises": ["5 min brisk walk", "25 min easy run", "5 min cool-down walk"]},
+                {"time": "18:30", "type": "Strength", "duration": 40, "intensity": "High",
+                 "description": "Lower body focus with progressive overload on the main lift.",
+                 "exercises": ["Back squat 4x6", "Romanian deadlift 3x8", "Walking lunges 3x12", "Plank 3x45s"]},
+                {"time": "21:00", "type": "Flexibility", "duration": 15, "intensity": "Light",
+                 "description": "Static stretching for hips and hamstrings before bed.",
+                 "exercises": ["Pigeon pose", "Seated forward fold", "Supine twist"]}
+              ],
+              "nutritionAdvice": "Aim for 130 g of protein spread across four meals; add complex carbohydrates around the evening session.",
+              "hydrationReminder": "Drink 2.8 litres across the day, including 500 ml in the hour after training.",
+              "goals": ["Complete both sessions", "Hit 10,000 steps", "Sleep 7.5 hours"],
+              "motivationalQuote": "Small steps every day add up to big results.",
+              "targetSteps": 10000,
+              "targetCalories": 2350,
+              "restAndRecovery": "Foam roll quads and calves for 10 minutes; keep screens off 30 minutes before sleep."
+            }""";
+
+    private static final String RECOMMENDATION_JSON = """
+            {
+              "analysis": {
+                "overall": "A solid aerobic session with consistent effort throughout.",
+                "pace": "Average pace of 5:42/km is in line with your recent easy runs.",
+                "heartRate": "Average heart rate of 148 bpm sits at the top of zone 2.",
+                "caloriesBurned": "410 kcal is appropriate for 45 minutes at this intensity."
+              },
+              "improvements": [
+                {"area": "Cadence", "recommendation": "Increase cadence towards 170 spm to reduce ground contact time."},
+                {"area": "Warm-up", "recommendation": "Add 5 minutes of dynamic drills before starting the run."}
+              ],
+              "suggestions": [
+                {"workout": "Tempo run", "description": "20 minutes at comfortably hard effort after a 10 minute warm-up."},
+                {"workout": "Hill repeats", "description": "6 x 60 seconds uphill with walk-down recovery."}
+              ],
+              "safety": ["Stay hydrated in warm weather", "Stop if you feel chest pain or dizziness"]
+            }""";
+
+    private ObjectMapper mapper;
+    private GeminiResponseDecoder decoder;
+    private String planResponse;
+    private String recommendationResponse;
+
+    @Setup
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        decoder = new GeminiResponseDecoder(mapper);
+        planResponse = envelope(PLAN_JSON);
+        recommendationResponse = envelope(RECOMMENDATION_JSON);
+    }
+
+    private String envelope(String answer) throws Exception {
+        return mapper.writeValueAsString(Map.of("candidates", List.of(Map.of(
+                "content", Map.of("role", "model", "parts", List.of(Map.of("text", "```json\n" + answer + "\n```"))),
+                "finishReason", "STOP"))));
+    }
+
+    @Benchmark
+    public DailyPlan dailyPlanLegacy() throws Exception {
+        JsonNode planJson = legacyAnswer(planResponse);
+        List<DailyPlan.WorkoutPlan> workouts = new ArrayList<>();
+        planJson.path("workouts").forEach(workoutNode -> {
+            List<String> exercises = new ArrayList<>();
+            workoutNode.path("exercises").forEach(ex -> exercises.add(ex.asText()));
+            DailyPlan.WorkoutPlan workout = new DailyPlan.WorkoutPlan();
+            workout.setTime(workoutNode.path("time").asText());
+            workout.setType(workoutNode.path("type").asText());
+            workout.setDuration(workoutNode.path("duration").asInt());
+            workout.setIntensity(workoutNode.path("intensity").asText());
+            workout.setDescription(workoutNode.path("description").asText());
+            workout.setExercises(exercises);
+            workouts.add(workout);
+        });
+        List<String> goals = new ArrayList<>();
+        planJson.path("goals").forEach(goal -> goals.add(goal.asText()));
+
+        DailyPlan plan = new DailyPlan();
+        plan.setMorningRoutine(planJson.path("morningRoutine").asText());
+        plan.setWorkouts(workouts);
+        plan.setNutritionAdvice(planJson.path("nutritionAdvice").asText());
+        plan.setHydrationReminder(planJson.path("hydrationReminder").asText());
+        plan.setGoals(goals);
+        plan.setMotivationalQuote(planJson.path("motivationalQuote").asText());
+        plan.setTargetSteps(planJson.path("targetSteps").asInt());
+        plan.setTargetCalories(planJson.path("targetCalories").asInt());
+        plan.setRestAndRecovery(planJson.path("restAndRecovery").asText());
+        return plan;
+    }
+
+    @Benchmark
+    public DailyPlan dailyPlanDecoder() throws Exception {
+        return decoder.readDailyPlan(planResponse);
+    }
+
+    // The tree is walked the way ActivityAIService used to, so both variants do comparable work
+    @Benchmark
+    public List<String> recommendationLegacy() throws Exception {
+        JsonNode answer = legacyAnswer(recommendationResponse);
+        List<String> lines = new ArrayList<>();
+        answer.path("analysis").forEach(section -> lines.add(section.asText()));
+        answer.path("improvements").forEach(item ->
+                lines.add(String.format("%s: %s", item.path("area").asText(), item.path("recommendation").asText())));
+        answer.path("suggestions").forEach(item ->
+                lines.add(String.format("%s: %s", item.path("workout").asText(), item.path("description").asText())));
+        answer.path("safety").forEach(item -> lines.add(item.asText()));
+        return lines;
+    }
+
+    @Benchmark
+    public List<String> recommendationDecoder() throws Exception {
+        GeminiRecommendation answer = decoder.readRecommendation(recommendationResponse);
+        GeminiRecommendation.Analysis analysis = answer.getAnalysis();
+        List<String> lines = new ArrayList<>(List.of(analysis.getOverall(), analysis.getPace(),
+                analysis.getHeartRate(), analysis.getCaloriesBurned()));
+        answer.getImprovements().forEach(item ->
+                lines.add(String.format("%s: %s", item.getArea(), item.getRecommendation())));
+        answer.getSuggestions().forEach(item ->
+                lines.add(String.format("%s: %s", item.getWorkout(), item.getDescription())));
+        lines.addAll(answer.getSafety());
+        return lines;
+    }
+
+    private JsonNode legacyAnswer(String response) throws Exception {
+        JsonNode textNode = mapper.readTree(response).path("candidates")
+                .get(0)
+                .path("content")
+                .path("parts")
+                .get(0)
+                .path("text");
+        String jsonContent = textNode.asText()
+                .replaceAll("```json\\n", "")
+                .replaceAll("\\n```", "")
+                .trim();
+        return mapper.readTree(jsonContent);
+    }
+}
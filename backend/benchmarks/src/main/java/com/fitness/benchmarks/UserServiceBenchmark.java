@@ -0,0 +1,67 @@
+package com.fitness.benchmarks;
+
+import com.fitness.userservice.controller.UserController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.lang.invoke.MethodHandle;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The admin check the user service runs on every request. A regular user is the slow case: every
+ * role claim location is looked up before it answers false.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final MethodHandle IS_ADMIN = PrivateMethods.instanceMethod(
+            UserController.class, "isAdmin", boolean.class, Jwt.class);
+
+    private UserController userController;
+    private Jwt adminJwt;
+    private Jwt userJwt;
+
+    @Setup
+    public void setUp() {
+        userController = PrivateMethods.withNullDependencies(UserController.class);
+        adminJwt = jwt("fitness_auth/roles", List.of("user", "admin"));
+        userJwt = jwt("roles", List.of("user"));
+    }
+
+    private static Jwt jwt(String rolesClaim, List<String> roles) {
+        Instant issuedAt = Instant.parse("2026-03-14T07:00:00Z");
+        return Jwt.withTokenValue("benchmark-token")
+                .header("alg", "RS256")
+                .subject("auth0|64f1c2e9a7b3d40012ab34cd")
+                .issuedAt(issuedAt)
+                .expiresAt(issuedAt.plusSeconds(86_400))
+                .claim(rolesClaim, roles)
+                .build();
+    }
+
+    @Benchmark
+    public boolean isAdminForAdmin() throws Throwable {
+        return (boolean) IS_ADMIN.invokeExact(userController, adminJwt);
+    }
+
+    @Benchmark
+    public boolean isAdminForUser() throws Throwable {
+        return (boolean) IS_ADMIN.invokeExact(userController, userJwt);
+    }
+}
@@ -1,35 +1,43 @@
 package com.fittrack.gateway.config;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Locale;
-import java.util.Objects;
+import java.time.Duration;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtValidators;
 import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.web.reactive.function.client.WebClient;
 
 import com.fittrack.gateway.config.validators.AudienceValidator;
+import com.fittrack.gateway.security.CachingReactiveJwtDecoder;
+import com.fittrack.gateway.security.GatewayIdentity;
+import com.fittrack.gateway.security.GatewayIdentityCache;
+import com.fittrack.gateway.security.JwksKeySource;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @EnableWebFluxSecurity
@@ -43,32 +51,86 @@ public class SecurityConfig {
     @Value("${AUTH0_AUDIENCE:}")
     private String auth0Audience;
 
+    @Value("${gateway.jwt-cache.max-size:10000}")
+    private long jwtCacheMaxSize;
+
+    @Value("${gateway.jwt-cache.max-ttl:10m}")
+    private Duration jwtCacheMaxTtl;
+
+    @Value("${gateway.jwks.refresh-interval:10m}")
+    private Duration jwksRefreshInterval;
+
+    @Value("${gateway.jwks.min-refetch-interval:30s}")
+    private Duration jwksMinRefetchInterval;
+
+    @Value("${GATEWAY_METRICS_USERNAME:prometheus}")
+    private String metricsUsername;
+
+    @Value("${GATEWAY_METRICS_PASSWORD:}")
+    private String metricsPassword;
+
     @Bean
     @ConditionalOnProperty(name = { "AUTH0_DOMAIN", "AUTH0_AUDIENCE" })
-    public ReactiveJwtDecoder jwtDecoder() {
-        String normalizedDomain = normalizeAuth0Domain(auth0Domain);
-        if (normalizedDomain.isBlank() || auth0Audience == null || auth0Audience.isBlank()) {
-            throw new IllegalStateException("Missing Auth0 configuration. Please set AUTH0_DOMAIN and AUTH0_AUDIENCE.");
-        }
+    public JwksKeySource jwksKeySource() {
+        return new JwksKeySource(WebClient.create(), requireIssuer() + ".well-known/jwks.json",
+            jwksRefreshInterval, jwksMinRefetchInterval);
+    }
 
-        String issuer = "https://" + normalizedDomain + "/";
-        String jwkSetUri = issuer + ".well-known/jwks.json";
+    @Bean
+    @ConditionalOnProperty(name = { "AUTH0_DOMAIN", "AUTH0_AUDIENCE" })
+    public ReactiveJwtDecoder jwtDecoder(JwksKeySource jwksKeySource, MeterRegistry meterRegistry) {
+        String issuer = requireIssuer();
 
-        NimbusReactiveJwtDecoder jwtDecoder = NimbusReactiveJwtDecoder.withJwkSetUri(jwkSetUri).build();
+        // Keys come from the prefetched, periodically refreshed JWKS instead of a fetch on first use
+        NimbusReactiveJwtDecoder jwtDecoder = NimbusReactiveJwtDecoder.withJwkSource(jwksKeySource::get).build();
 
         OAuth2TokenValidator<Jwt> withIssuer = JwtValidators.createDefaultWithIssuer(issuer);
         OAuth2TokenValidator<Jwt> audienceValidator = new AudienceValidator(auth0Audience);
         OAuth2TokenValidator<Jwt> validator = new DelegatingOAuth2TokenValidator<>(withIssuer, audienceValidator);
         jwtDecoder.setJwtValidator(validator);
 
-        return jwtDecoder;
+        return new CachingReactiveJwtDecoder(jwtDecoder, jwtCacheMaxSize, jwtCacheMaxTtl, meterRegistry);
+    }
+
+    private String requireIssuer() {
+        String normalizedDomain = normalizeAuth0Domain(auth0Domain);
+        if (normalizedDomain.isBlank() || auth0Audience == null || auth0Audience.isBlank()) {
+            throw new IllegalStateException("Missing Auth0 configuration. Please set AUTH0_DOMAIN and AUTH0_AUDIENCE.");
+        }
+        return "https://" + normalizedDomain + "/";
     }
 
+    /**
+     * /actuator/prometheus exposes route traffic, error rates and upstream addresses, so it gets its
+     * own chain: HTTP basic for a single scrape user, and denied outright when no password is set.
+     * Ordered first so neither the JWT chain nor the degraded-mode actuator rule applies to it.
+     */
     @Bean
-    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
-        JwtAuthenticationConverter jwtConverter = new JwtAuthenticationConverter();
-        jwtConverter.setJwtGrantedAuthoritiesConverter(auth0AuthoritiesConverter());
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityWebFilterChain metricsSecurityWebFilterChain(ServerHttpSecurity http) {
+        http
+            .securityMatcher(ServerWebExchangeMatchers.pathMatchers("/actuator/prometheus"))
+            .csrf(ServerHttpSecurity.CsrfSpec::disable);
+        if (metricsPassword == null || metricsPassword.isBlank()) {
+            http.authorizeExchange(exchanges -> exchanges.anyExchange().denyAll());
+            return http.build();
+        }
+
+        // Plain values are compared as-is; a {bcrypt}... hash is also accepted
+        String password = metricsPassword.startsWith("{") ? metricsPassword : "{noop}" + metricsPassword;
+        MapReactiveUserDetailsService scrapeUser = new MapReactiveUserDetailsService(User.withUsername(metricsUsername)
+            .password(password)
+            .roles("METRICS")
+            .build());
+        http
+            .authorizeExchange(exchanges -> exchanges.anyExchange().hasRole("METRICS"))
+            .httpBasic(basic -> basic.authenticationManager(new UserDetailsRepositoryReactiveAuthenticationManager(scrapeUser)));
+        return http.build();
+    }
 
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, GatewayIdentityCache identityCache,
+            ObjectProvider<ReactiveJwtDecoder> jwtDecoder) {
         String normalizedDomain = normalizeAuth0Domain(auth0Domain);
         boolean auth0Configured = !normalizedDomain.isBlank() && auth0Audience != null && !auth0Audience.isBlank();
         if (!auth0Configured) {
@@ -95,8 +157,8 @@ public class SecurityConfig {
             )
             .oauth2ResourceServer(oauth2 -> oauth2
                 .jwt(jwt -> jwt
-                    .jwtDecoder(jwtDecoder())
-                    .jwtAuthenticationConverter(new ReactiveJwtAuthenticationConverterAdapter(jwtConverter))
+                    .jwtDecoder(jwtDecoder.getObject())
+                    .jwtAuthenticationConverter(new ReactiveJwtAuthenticationConverterAdapter(identityAuthenticationConverter(identityCache)))
                 )
             );
 
@@ -117,70 +179,16 @@ public class SecurityConfig {
         return s.trim();
     }
 
-    private static Converter<Jwt, Collection<GrantedAuthority>> auth0AuthoritiesConverter() {
+    private static Converter<Jwt, AbstractAuthenticationToken> identityAuthenticationConverter(
+            GatewayIdentityCache identityCache) {
         return jwt -> {
-            // FitTrack frontend checks for roles in these places:
-            // - https://fitness-app/roles
-            // - roles
-            // - fitness_auth/roles
-            // This converter supports all of them and emits ROLE_* authorities.
-            List<String> roles = new ArrayList<>();
-            roles.addAll(extractStringListClaim(jwt, "https://fitness-app/roles"));
-            roles.addAll(extractStringListClaim(jwt, "roles"));
-            roles.addAll(extractStringListClaim(jwt, "fitness_auth/roles"));
-            roles.addAll(extractStringListClaim(jwt, "https://fitness.app/roles"));
-            roles.addAll(extractStringListClaim(jwt, "https://fittrack.app/roles"));
-
-            // Some Auth0 setups use permissions instead of roles. Map those to PERMISSION_*.
-            List<String> permissions = extractStringListClaim(jwt, "permissions");
-
-            LinkedHashSet<GrantedAuthority> authorities = new LinkedHashSet<>();
-            for (String role : roles) {
-                if (role == null || role.isBlank()) {
-                    continue;
-                }
-                String normalized = role.trim().toUpperCase(Locale.ROOT);
-                authorities.add(new SimpleGrantedAuthority("ROLE_" + normalized));
-            }
-            for (String permission : permissions) {
-                if (permission == null || permission.isBlank()) {
-                    continue;
-                }
-                String normalized = permission.trim();
-                authorities.add(new SimpleGrantedAuthority("PERMISSION_" + normalized));
-            }
-            return authorities;
+            // Authorities and forwarded headers come from the same per-token snapshot;
+            // JwtForwardingFilter reads it back from the token details.
+            GatewayIdentity identity = identityCache.resolve(jwt);
+            JwtAuthenticationToken authentication =
+                new JwtAuthenticationToken(jwt, identity.getAuthorities(), identity.getSubject());
+            authentication.setDetails(identity);
+            return authentication;
         };
     }
-
-    private static List<String> extractStringListClaim(Jwt jwt, String claimName) {
-        Object value = jwt.getClaim(claimName);
-        if (value == null) {
-            return List.of();
-        }
-
-        if (value instanceof String) {
-            String s = ((String) value).trim();
-            return s.isEmpty() ? List.of() : List.of(s);
-        }
-
-        if (value instanceof Collection) {
-            Collection<?> collection = (Collection<?>) value;
-            List<String> out = new ArrayList<>(collection.size());
-            for (Object o : collection) {
-                if (o == null) {
-                    continue;
-                }
-                String s = Objects.toString(o, "").trim();
-                if (!s.isEmpty()) {
-                    out.add(s);
-                }
-            }
-            return out;
-        }
-
-        // Fallback: stringify unexpected types
-        String s = Objects.toString(value, "").trim();
-        return s.isEmpty() ? List.of() : List.of(s);
-    }
 }
@@ -0,0 +1,23 @@
+package com.fittrack.gateway.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Turns on Reactor Netty client metrics for the proxy's HttpClient, which adds upstream
+ * timings the gateway filters cannot see: {@code reactor.netty.http.client.connect.time},
+ * {@code tls.handshake.time} and {@code address.resolver}, tagged by remote address.
+ * Reactor Netty records into the global registry, which Spring Boot wires to Prometheus.
+ */
+@Configuration
+@ConditionalOnProperty(name = "gateway.metrics.upstream-client", havingValue = "true", matchIfMissing = true)
+public class UpstreamMetricsConfig {
+
+    @Bean
+    public HttpClientCustomizer upstreamMetricsCustomizer() {
+        // Collapse the uri tag: per-path series are covered by gateway.route.* and would be unbounded
+        return httpClient -> httpClient.metrics(true, uri -> "/");
+    }
+}
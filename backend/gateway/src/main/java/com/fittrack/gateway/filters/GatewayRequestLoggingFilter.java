@@ -1,5 +1,7 @@
 package com.fittrack.gateway.filters;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -13,36 +15,48 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 
+import com.fittrack.gateway.logging.AccessLogEntry;
+import com.fittrack.gateway.logging.AccessLogWriter;
+import com.fittrack.gateway.metrics.RouteMetrics;
+
 import reactor.core.publisher.Mono;
 
+/**
+ * Times every proxied request, records it in {@link RouteMetrics} and hands it to
+ * {@link AccessLogWriter}, which decides whether it is logged. Runs right after
+ * JwtForwardingFilter so responses served by ResponseCacheFilter are timed and logged too.
+ */
 @Component
-@Order(Ordered.LOWEST_PRECEDENCE - 10)
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
 public class GatewayRequestLoggingFilter implements GlobalFilter {
     private static final Logger logger = LoggerFactory.getLogger(GatewayRequestLoggingFilter.class);
 
+    private final AccessLogWriter accessLog;
+    private final RouteMetrics routeMetrics;
+
+    public GatewayRequestLoggingFilter(AccessLogWriter accessLog, RouteMetrics routeMetrics) {
+        this.accessLog = accessLog;
+        this.routeMetrics = routeMetrics;
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         long startNanos = System.nanoTime();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
 
-        String method = exchange.getRequest().getMethod() == null ? "?" : exchange.getRequest().getMethod().name();
-        String path = exchange.getRequest().getURI().getRawPath();
+        // Headers are committed once the upstream response (or a cached one) starts streaming back
+        exchange.getResponse().beforeCommit(() -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            routeMetrics.recordFirstByte(resolveRouteId(exchange), resolveTarget(exchange),
+                status == null ? 0 : status.value(), System.nanoTime() - startNanos);
+            return Mono.empty();
+        });
 
         return chain.filter(exchange)
             .onErrorResume(ex -> {
-                String routeId = resolveRouteId(exchange);
-                String targetUrl = resolveTargetUrl(exchange);
-                long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
-
-                logger.warn(
-                    "Gateway proxy failed: method={} path={} routeId={} targetUrl={} elapsedMs={} errorType={} error={} ",
-                    method,
-                    path,
-                    routeId,
-                    targetUrl,
-                    elapsedMs,
-                    ex.getClass().getName(),
-                    ex.getMessage(),
-                    ex);
+                failure.set(ex);
+                // Type and message go to the access log; the stack trace only at debug
+                logger.debug("Gateway proxy failed: path={}", exchange.getRequest().getURI().getRawPath(), ex);
 
                 // Help debugging from browser without leaking details in the body.
                 // Only set headers if the response isn't committed.
@@ -54,18 +68,30 @@ public class GatewayRequestLoggingFilter implements GlobalFilter {
                 return exchange.getResponse().setComplete();
             })
             .doFinally(signalType -> {
-                String routeId = resolveRouteId(exchange);
-                String targetUrl = resolveTargetUrl(exchange);
+                long elapsedNanos = System.nanoTime() - startNanos;
+                long elapsedMs = elapsedNanos / 1_000_000;
                 HttpStatusCode status = exchange.getResponse().getStatusCode();
-                long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
-                logger.info("Gateway request: method={} path={} routeId={} targetUrl={} status={} elapsedMs={} signal={} ",
-                    method,
-                    path,
+                int statusCode = status == null ? 0 : status.value();
+                Throwable error = failure.get();
+                String routeId = resolveRouteId(exchange);
+                routeMetrics.recordRequest(routeId, resolveTarget(exchange), statusCode, elapsedNanos);
+
+                String reason = accessLog.reasonToLog(statusCode, error != null, elapsedMs);
+                if (reason == null) {
+                    return;
+                }
+                accessLog.submit(new AccessLogEntry(
+                    System.currentTimeMillis(),
+                    exchange.getRequest().getId(),
+                    exchange.getRequest().getMethod().name(),
+                    exchange.getRequest().getURI().getRawPath(),
                     routeId,
-                    targetUrl,
-                    status == null ? "?" : status.value(),
+                    resolveTargetUrl(exchange),
+                    statusCode,
                     elapsedMs,
-                    signalType);
+                    reason,
+                    error == null ? null : error.getClass().getName(),
+                    error == null ? null : error.getMessage()));
             });
     }
 
@@ -74,6 +100,12 @@ public class GatewayRequestLoggingFilter implements GlobalFilter {
         return route == null ? "-" : route.getId();
     }
 
+    // The route's configured URI rather than the resolved request URL, so the tag stays bounded
+    private static String resolveTarget(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route == null ? "-" : route.getUri().toString();
+    }
+
     private static String resolveTargetUrl(ServerWebExchange exchange) {
         Object uri = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
         return uri == null ? "-" : uri.toString();
@@ -0,0 +1,351 @@
+package com.fittrack.gateway.filters;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caches successful GET responses per user and route for the routes listed in
+ * {@code gateway.response-cache.route-ttls}. The JWT subject is part of every key, so one
+ * user's data is never served to another. Responses carry an ETag and a matching
+ * If-None-Match is answered with 304. A write through a route drops the caller's cached
+ * responses for that route.
+ *
+ * <p>Listing a route here is the opt-in: the services behind it send Spring Security's default
+ * {@code Cache-Control: no-cache, no-store, max-age=0, must-revalidate} on every response, which
+ * is meant for browsers and shared caches, so the gateway ignores exactly that value (and still
+ * passes it on to the client). Any other {@code no-store} a service sets is honoured.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+    static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    // Rough per-entry bookkeeping on top of the body, so tiny bodies still count
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    // Written by Spring Security's CacheControlHeadersWriter when the controller set no Cache-Control
+    private static final String SECURITY_DEFAULT_CACHE_CONTROL = "no-cache,no-store,max-age=0,must-revalidate";
+
+    private final boolean enabled;
+    private final Map<String, Duration> routeTtls;
+    private final long maxEntryBytes;
+    private final Cache<CacheKey, CachedResponse> cache;
+    private final Cache<UserRoute, Long> generations;
+
+    public ResponseCacheFilter(
+            @Value("${gateway.response-cache.enabled:true}") boolean enabled,
+            @Value("${gateway.response-cache.route-ttls:}") String routeTtls,
+            @Value("${gateway.response-cache.max-size:64MB}") DataSize maxSize,
+            @Value("${gateway.response-cache.max-entry-size:512KB}") DataSize maxEntrySize,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.routeTtls = parseRouteTtls(routeTtls);
+        this.maxEntryBytes = maxEntrySize.toBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((CacheKey key, CachedResponse value) -> value.weight())
+                .expireAfter(new Expiry<CacheKey, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(CacheKey key, CachedResponse value, long currentTime) {
+                        return value.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(CacheKey key, CachedResponse value, long currentTime,
+                            long currentDuration) {
+                        return value.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(CacheKey key, CachedResponse value, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gatewayResponses");
+        // Every lookup touches the user's generation, so it outlives any entry created under it
+        Duration maxTtl = this.routeTtls.values().stream().max(Duration::compareTo).orElse(Duration.ZERO);
+        this.generations = Caffeine.newBuilder()
+                .expireAfterAccess(maxTtl)
+                .build();
+        if (enabled) {
+            logger.info("Gateway response cache enabled: routeTtls={} maxSize={} maxEntrySize={}",
+                    this.routeTtls, maxSize, maxEntrySize);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // Must wrap the response before NettyWriteResponseFilter writes the upstream body
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        Duration ttl = route == null ? null : routeTtls.get(route.getId());
+        if (ttl == null) {
+            return chain.filter(exchange);
+        }
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(ctx -> ctx.getAuthentication())
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .map(auth -> ((JwtAuthenticationToken) auth).getToken().getSubject())
+                .defaultIfEmpty("")
+                .flatMap(subject -> StringUtils.hasText(subject)
+                        ? filterForSubject(exchange, chain, route.getId(), subject, ttl)
+                        : chain.filter(exchange));
+    }
+
+    private Mono<Void> filterForSubject(ServerWebExchange exchange, GatewayFilterChain chain,
+            String routeId, String subject, Duration ttl) {
+        ServerHttpRequest request = exchange.getRequest();
+        HttpMethod method = request.getMethod();
+
+        if (HttpMethod.POST.equals(method) || HttpMethod.PUT.equals(method)
+                || HttpMethod.PATCH.equals(method) || HttpMethod.DELETE.equals(method)) {
+            // Evict before the client sees the write's response, and again once it has gone through;
+            // a GET racing it caches under a generation that is already stale
+            exchange.getResponse().beforeCommit(() -> {
+                invalidate(subject, routeId);
+                return Mono.empty();
+            });
+            return chain.filter(exchange).doFinally(signal -> invalidate(subject, routeId));
+        }
+        if (!HttpMethod.GET.equals(method)) {
+            return chain.filter(exchange);
+        }
+
+        String cacheControl = request.getHeaders().getCacheControl();
+        if (cacheControl != null && cacheControl.contains("no-store")) {
+            return chain.filter(exchange);
+        }
+
+        long generation = generations.get(new UserRoute(subject, routeId), userRoute -> 0L);
+        CacheKey key = new CacheKey(subject, routeId, generation, request.getURI().getRawPath(),
+                request.getURI().getRawQuery(), request.getHeaders().getFirst(HttpHeaders.ACCEPT));
+        List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+
+        // no-cache skips the lookup but still refreshes the entry with the new response
+        CachedResponse cached = cacheControl != null && cacheControl.contains("no-cache")
+                ? null
+                : cache.getIfPresent(key);
+        if (cached != null) {
+            return writeCached(exchange.getResponse(), cached, ifNoneMatch);
+        }
+
+        CachingResponse response = new CachingResponse(exchange.getResponse(), key, ttl, ifNoneMatch);
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    private Mono<Void> writeCached(ServerHttpResponse response, CachedResponse cached, List<String> ifNoneMatch) {
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(cached.etag());
+        headers.set(CACHE_STATUS_HEADER, "HIT");
+        if (cached.cacheControl() != null) {
+            headers.setCacheControl(cached.cacheControl());
+        }
+        if (etagMatches(ifNoneMatch, cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.contentType() != null) {
+            headers.setContentType(cached.contentType());
+        }
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    /**
+     * Moves the user to a new generation for the route. Their older entries can no longer be
+     * looked up and age out through their TTL or size eviction, so a write costs O(1) instead
+     * of a scan over every user's entries.
+     */
+    private void invalidate(String subject, String routeId) {
+        generations.asMap().merge(new UserRoute(subject, routeId), 1L, Long::sum);
+    }
+
+    private static boolean etagMatches(List<String> ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty() || etag == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || stripWeak(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static String strongEtag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Map<String, Duration> parseRouteTtls(String value) {
+        Map<String, Duration> ttls = new HashMap<>();
+        for (String entry : StringUtils.commaDelimitedListToStringArray(value)) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int eq = trimmed.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Invalid gateway.response-cache.route-ttls entry: " + trimmed);
+            }
+            Duration ttl = DurationStyle.detectAndParse(trimmed.substring(eq + 1).trim());
+            if (!ttl.isZero() && !ttl.isNegative()) {
+                ttls.put(trimmed.substring(0, eq).trim(), ttl);
+            }
+        }
+        return Map.copyOf(ttls);
+    }
+
+    private record UserRoute(String subject, String routeId) {
+    }
+
+    private record CacheKey(String subject, String routeId, long generation, String path, String query,
+            String accept) {
+    }
+
+    private record CachedResponse(MediaType contentType, String cacheControl, String etag, byte[] body, Duration ttl) {
+        int weight() {
+            return body.length + ENTRY_OVERHEAD_BYTES;
+        }
+    }
+
+    /**
+     * Buffers a cacheable upstream body so it can be stored and tagged before it is written.
+     * Anything that is not a plain 200 JSON/text response passes through untouched.
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+        private final CacheKey key;
+        private final Duration ttl;
+        private final List<String> ifNoneMatch;
+
+        CachingResponse(ServerHttpResponse delegate, CacheKey key, Duration ttl, List<String> ifNoneMatch) {
+            super(delegate);
+            this.key = key;
+            this.ttl = ttl;
+            this.ifNoneMatch = ifNoneMatch;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isCacheable()) {
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body)
+                    .flatMap(joined -> {
+                        byte[] bytes = new byte[joined.readableByteCount()];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+                        return writeBuffered(bytes);
+                    })
+                    .switchIfEmpty(Mono.defer(() -> getDelegate().writeWith(Flux.empty())));
+        }
+
+        private Mono<Void> writeBuffered(byte[] bytes) {
+            HttpHeaders headers = getDelegate().getHeaders();
+            String etag = headers.getETag() != null ? headers.getETag() : strongEtag(bytes);
+            headers.setETag(etag);
+            if (bytes.length <= maxEntryBytes) {
+                cache.put(key, new CachedResponse(headers.getContentType(), headers.getCacheControl(), etag, bytes, ttl));
+                // Only responses that were actually stored report a miss
+                headers.set(CACHE_STATUS_HEADER, "MISS");
+            }
+
+            if (etagMatches(ifNoneMatch, etag)) {
+                getDelegate().setStatusCode(HttpStatus.NOT_MODIFIED);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                return getDelegate().setComplete();
+            }
+            headers.setContentLength(bytes.length);
+            return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+        }
+
+        private boolean isCacheable() {
+            if (!HttpStatus.OK.equals(getStatusCode())) {
+                return false;
+            }
+            HttpHeaders headers = getHeaders();
+            MediaType contentType = headers.getContentType();
+            if (contentType == null
+                    || MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                    || MediaType.TEXT_EVENT_STREAM.isCompatibleWith(contentType)
+                    || !(MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                            || contentType.getSubtype().endsWith("+json")
+                            || "text".equals(contentType.getType()))) {
+                return false;
+            }
+            if (headers.containsKey(HttpHeaders.SET_COOKIE) || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                return false;
+            }
+            String cacheControl = headers.getCacheControl();
+            if (cacheControl != null && cacheControl.contains("no-store")
+                    && !SECURITY_DEFAULT_CACHE_CONTROL.equalsIgnoreCase(cacheControl.replace(" ", ""))) {
+                return false;
+            }
+            long contentLength = headers.getContentLength();
+            return contentLength < 0 || contentLength <= maxEntryBytes;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.fittrack.gateway.logging;
+
+/**
+ * One proxied request as written to the access log. {@code reason} says why it was kept:
+ * {@code error} and {@code slow} are always logged, {@code sampled} ones at the sample rate.
+ */
+public record AccessLogEntry(
+        long timestampMillis,
+        String requestId,
+        String method,
+        String path,
+        String routeId,
+        String targetUrl,
+        int status,
+        long elapsedMs,
+        String reason,
+        String errorType,
+        String errorMessage) {
+}
@@ -0,0 +1,166 @@
+package com.fittrack.gateway.logging;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Asynchronous JSON-lines access log. Request threads only decide whether to keep an entry
+ * and offer it to a bounded buffer; when the buffer is full the entry is dropped and counted
+ * ({@code gateway.access.log.dropped}) so the event loop never waits on log I/O. A single
+ * writer thread drains the buffer in batches and writes each batch with one call to stdout
+ * (or {@code gateway.access-log.file}).
+ */
+@Component
+public class AccessLogWriter implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogWriter.class);
+
+    private static final SerializedString LINE_SEPARATOR = new SerializedString("\n");
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long slowThresholdMs;
+    private final int batchSize;
+    private final BlockingQueue<AccessLogEntry> buffer;
+    private final PrintStream out;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ScheduledExecutorService executor;
+    private final Counter written;
+    private final Counter dropped;
+
+    public AccessLogWriter(
+            @Value("${gateway.access-log.enabled:true}") boolean enabled,
+            @Value("${gateway.access-log.sample-rate:0.1}") double sampleRate,
+            @Value("${gateway.access-log.slow-threshold:2s}") Duration slowThreshold,
+            @Value("${gateway.access-log.buffer-size:8192}") int bufferSize,
+            @Value("${gateway.access-log.batch-size:512}") int batchSize,
+            @Value("${gateway.access-log.flush-interval:200ms}") Duration flushInterval,
+            @Value("${gateway.access-log.file:}") String file,
+            MeterRegistry meterRegistry) throws FileNotFoundException {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.slowThresholdMs = slowThreshold.toMillis();
+        this.batchSize = batchSize;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.out = file == null || file.isBlank()
+                ? System.out
+                : new PrintStream(new FileOutputStream(file, true), false, StandardCharsets.UTF_8);
+        this.written = Counter.builder("gateway.access.log.written").register(meterRegistry);
+        this.dropped = Counter.builder("gateway.access.log.dropped").register(meterRegistry);
+        Gauge.builder("gateway.access.log.buffered", buffer, BlockingQueue::size).register(meterRegistry);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "access-log-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        if (enabled) {
+            executor.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Why a request should be logged, or {@code null} to skip it: failures and 5xx responses
+     * ({@code error}) and requests over the slow threshold ({@code slow}) always, the rest at
+     * the sample rate.
+     */
+    public String reasonToLog(int status, boolean failed, long elapsedMs) {
+        if (!enabled) {
+            return null;
+        }
+        if (failed || status >= 500) {
+            return "error";
+        }
+        if (elapsedMs >= slowThresholdMs) {
+            return "slow";
+        }
+        if (sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            return "sampled";
+        }
+        return null;
+    }
+
+    public void submit(AccessLogEntry entry) {
+        if (!buffer.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    private void flush() {
+        List<AccessLogEntry> batch = new ArrayList<>(batchSize);
+        try {
+            while (buffer.drainTo(batch, batchSize) > 0) {
+                StringWriter lines = new StringWriter(batch.size() * 256);
+                try (JsonGenerator json = jsonFactory.createGenerator(lines)) {
+                    json.setRootValueSeparator(LINE_SEPARATOR);
+                    for (AccessLogEntry entry : batch) {
+                        writeEntry(json, entry);
+                    }
+                }
+                lines.write('\n');
+                // One write per batch; PrintStream holds its lock for the whole call so lines never interleave
+                out.print(lines);
+                out.flush();
+                written.increment(batch.size());
+                batch.clear();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Access log flush failed; {} entries lost: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private static void writeEntry(JsonGenerator json, AccessLogEntry entry) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("ts", entry.timestampMillis());
+        json.writeStringField("requestId", entry.requestId());
+        json.writeStringField("method", entry.method());
+        json.writeStringField("path", entry.path());
+        json.writeStringField("route", entry.routeId());
+        json.writeStringField("target", entry.targetUrl());
+        json.writeNumberField("status", entry.status());
+        json.writeNumberField("elapsedMs", entry.elapsedMs());
+        json.writeStringField("reason", entry.reason());
+        if (entry.errorType() != null) {
+            json.writeStringField("errorType", entry.errorType());
+            json.writeStringField("error", entry.errorMessage());
+        }
+        json.writeEndObject();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+        if (out != System.out) {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.fittrack.gateway.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Per-route latency timers for SLOs, published with p50/p95/p99/p999 and a percentile histogram
+ * so {@code histogram_quantile} can aggregate across gateway instances. Tags are kept bounded:
+ * route id, status class and the route's configured target URI (not the request path).
+ */
+@Component
+public class RouteMetrics {
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99, 0.999};
+    private static final String[] STATUS_CLASSES = {"UNKNOWN", "1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    private final Meter.MeterProvider<Timer> requests;
+    private final Meter.MeterProvider<Timer> firstByte;
+
+    public RouteMetrics(MeterRegistry meterRegistry) {
+        this.requests = latencyTimer("gateway.route.requests",
+                "Time from the gateway receiving a request until the response completes")
+                .withRegistry(meterRegistry);
+        this.firstByte = latencyTimer("gateway.route.first.byte",
+                "Time from the gateway receiving a request until response headers are sent to the client")
+                .withRegistry(meterRegistry);
+    }
+
+    public void recordRequest(String routeId, String target, int status, long nanos) {
+        requests.withTags("route", routeId, "target", target, "status", statusClass(status))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFirstByte(String routeId, String target, int status, long nanos) {
+        firstByte.withTags("route", routeId, "target", target, "status", statusClass(status))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer.Builder latencyTimer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(2));
+    }
+
+    static String statusClass(int status) {
+        int index = status / 100;
+        return index >= 1 && index <= 5 ? STATUS_CLASSES[index] : STATUS_CLASSES[0];
+    }
+}
@@ -0,0 +1,182 @@
+package com.fittrack.gateway.security;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Everything the gateway derives from a validated JWT: the authorities used for access
+ * decisions and the identity header values forwarded to the services. It only depends on
+ * the token, so it is computed once per token by {@link GatewayIdentityCache}.
+ */
+public final class GatewayIdentity {
+    private static final String B64_PREFIX = "b64_";
+
+    // FitTrack frontend checks for roles in these places; the first one found is forwarded as X-User-Role
+    private static final List<String> FORWARDED_ROLE_CLAIMS = List.of(
+            "https://fitness-app/roles",
+            "roles",
+            "fitness_auth/roles");
+
+    // Also accepted for authorities, but never forwarded
+    private static final List<String> EXTRA_ROLE_CLAIMS = List.of(
+            "https://fitness.app/roles",
+            "https://fittrack.app/roles");
+
+    // Other claims the services read, copied into the internal identity assertion
+    private static final List<String> SERVICE_CLAIMS = List.of(
+            "scope",
+            "email",
+            "email_verified",
+            "name",
+            "given_name",
+            "family_name",
+            "permissions");
+
+    private final String subject;
+    private final String userIdHeader;
+    private final String emailHeader;
+    private final String roleHeader;
+    private final Collection<GrantedAuthority> authorities;
+    private final Map<String, Object> internalClaims;
+    private final Instant expiresAt;
+
+    private GatewayIdentity(String subject, String userIdHeader, String emailHeader, String roleHeader,
+            Collection<GrantedAuthority> authorities, Map<String, Object> internalClaims, Instant expiresAt) {
+        this.subject = subject;
+        this.userIdHeader = userIdHeader;
+        this.emailHeader = emailHeader;
+        this.roleHeader = roleHeader;
+        this.authorities = authorities;
+        this.internalClaims = internalClaims;
+        this.expiresAt = expiresAt;
+    }
+
+    public static GatewayIdentity from(Jwt jwt) {
+        List<String> forwardedRoles = new ArrayList<>();
+        for (String claim : FORWARDED_ROLE_CLAIMS) {
+            forwardedRoles.addAll(extractStringListClaim(jwt, claim));
+        }
+        List<String> roles = new ArrayList<>(forwardedRoles);
+        for (String claim : EXTRA_ROLE_CLAIMS) {
+            roles.addAll(extractStringListClaim(jwt, claim));
+        }
+
+        // Some Auth0 setups use permissions instead of roles. Map those to PERMISSION_*.
+        List<String> permissions = extractStringListClaim(jwt, "permissions");
+
+        LinkedHashSet<GrantedAuthority> authorities = new LinkedHashSet<>();
+        for (String role : roles) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase(Locale.ROOT)));
+        }
+        for (String permission : permissions) {
+            authorities.add(new SimpleGrantedAuthority("PERMISSION_" + permission));
+        }
+
+        // Role claims are copied verbatim, so the services' own claim handling sees the same token shape
+        Map<String, Object> internalClaims = new LinkedHashMap<>();
+        for (List<String> claims : List.of(FORWARDED_ROLE_CLAIMS, EXTRA_ROLE_CLAIMS, SERVICE_CLAIMS)) {
+            for (String claim : claims) {
+                Object value = jwt.getClaim(claim);
+                if (value != null) {
+                    internalClaims.put(claim, value);
+                }
+            }
+        }
+
+        String email = jwt.getClaimAsString("email");
+        return new GatewayIdentity(
+                jwt.getSubject(),
+                encodeHeaderValue(jwt.getSubject()),
+                email == null ? "" : email,
+                forwardedRoles.isEmpty() ? "" : forwardedRoles.get(0),
+                Collections.unmodifiableCollection(authorities),
+                Collections.unmodifiableMap(internalClaims),
+                jwt.getExpiresAt());
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    /** Subject in the {@code b64_} form sent as X-User-ID, empty when the token has no subject. */
+    public String getUserIdHeader() {
+        return userIdHeader;
+    }
+
+    public String getEmailHeader() {
+        return emailHeader;
+    }
+
+    public String getRoleHeader() {
+        return roleHeader;
+    }
+
+    public Collection<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    /** Claims carried by the internal identity assertion besides iss, sub, iat and exp. */
+    public Map<String, Object> getInternalClaims() {
+        return internalClaims;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    // Some upstream proxies are strict about header values; Auth0 subject commonly
+    // contains '|' which can be rejected. Encode to a safe form and let services
+    // decode if needed.
+    static String encodeHeaderValue(String value) {
+        if (value == null || value.isBlank()) {
+            return "";
+        }
+        String b64 = Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        return B64_PREFIX + b64;
+    }
+
+    private static List<String> extractStringListClaim(Jwt jwt, String claimName) {
+        Object value = jwt.getClaim(claimName);
+        if (value == null) {
+            return List.of();
+        }
+
+        if (value instanceof String) {
+            String s = ((String) value).trim();
+            return s.isEmpty() ? List.of() : List.of(s);
+        }
+
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            List<String> out = new ArrayList<>(collection.size());
+            for (Object o : collection) {
+                if (o == null) {
+                    continue;
+                }
+                String s = Objects.toString(o, "").trim();
+                if (!s.isEmpty()) {
+                    out.add(s);
+                }
+            }
+            return out;
+        }
+
+        // Fallback: stringify unexpected types
+        String s = Objects.toString(value, "").trim();
+        return s.isEmpty() ? List.of() : List.of(s);
+    }
+}
@@ -0,0 +1,67 @@
+package com.fittrack.gateway.security;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * {@link GatewayIdentity} per bearer token, kept until the token expires. Clients send the
+ * same token for many requests, so the claims are walked once per token instead of once per
+ * request. Tokens without an expiry are never cached.
+ */
+@Component
+public class GatewayIdentityCache {
+
+    private final Cache<String, GatewayIdentity> cache;
+
+    public GatewayIdentityCache(
+            @Value("${gateway.identity-cache.max-size:10000}") long maxSize,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, GatewayIdentity>() {
+                    @Override
+                    public long expireAfterCreate(String token, GatewayIdentity identity, long currentTime) {
+                        return untilExpiry(identity);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, GatewayIdentity identity, long currentTime,
+                            long currentDuration) {
+                        return untilExpiry(identity);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, GatewayIdentity identity, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gatewayIdentities");
+    }
+
+    public GatewayIdentity resolve(Jwt jwt) {
+        if (jwt.getExpiresAt() == null) {
+            return GatewayIdentity.from(jwt);
+        }
+        // Keyed by the token string itself: lookups hash it, and equals() rules out collisions
+        return cache.get(jwt.getTokenValue(), token -> GatewayIdentity.from(jwt));
+    }
+
+    private static long untilExpiry(GatewayIdentity identity) {
+        Duration remaining = Duration.between(Instant.now(), identity.getExpiresAt());
+        return remaining.isNegative() ? 0 : remaining.toNanos();
+    }
+}
@@ -0,0 +1,92 @@
+package com.fittrack.gateway.security;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+
+/**
+ * Opt-in ({@code INTERNAL_IDENTITY_ENABLED=true}) internal identity assertion: a short-lived
+ * HS256 JWT signed with {@code INTERNAL_IDENTITY_SECRET}, sent to the services in
+ * {@link #HEADER}. Services configured with the same secret validate it with one HMAC
+ * instead of verifying the Auth0 token's RSA signature against the JWKS again.
+ * An assertion is reused for half its lifetime per {@link GatewayIdentity}.
+ */
+@Component
+public class InternalIdentityMinter {
+    private static final Logger logger = LoggerFactory.getLogger(InternalIdentityMinter.class);
+
+    public static final String HEADER = "X-Internal-Identity";
+    static final String ISSUER = "fittrack-gateway";
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final JwtEncoder encoder;
+    private final Cache<GatewayIdentity, String> assertions;
+
+    public InternalIdentityMinter(
+            @Value("${INTERNAL_IDENTITY_ENABLED:false}") boolean enabled,
+            @Value("${INTERNAL_IDENTITY_SECRET:}") String secret,
+            @Value("${INTERNAL_IDENTITY_TTL:60s}") Duration ttl) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        if (!enabled) {
+            this.encoder = null;
+            this.assertions = null;
+            return;
+        }
+        byte[] key = secret.getBytes(StandardCharsets.UTF_8);
+        if (key.length < 32) {
+            throw new IllegalStateException("INTERNAL_IDENTITY_SECRET must be at least 32 bytes when INTERNAL_IDENTITY_ENABLED=true");
+        }
+        this.encoder = new NimbusJwtEncoder(new ImmutableSecret<>(new SecretKeySpec(key, "HmacSHA256")));
+        // Identities are cached per token, so identity equality is the right key; weak keys let them go with it
+        this.assertions = Caffeine.newBuilder()
+                .weakKeys()
+                .expireAfterWrite(ttl.dividedBy(2))
+                .build();
+        logger.info("Internal identity assertions enabled: ttl={}", ttl);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String assertionFor(GatewayIdentity identity) {
+        return assertions.get(identity, this::mint);
+    }
+
+    private String mint(GatewayIdentity identity) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(ttl);
+        if (identity.getExpiresAt() != null && identity.getExpiresAt().isBefore(expiresAt)) {
+            expiresAt = identity.getExpiresAt();
+        }
+        // A token just past its expiry still passes within the clock skew; iat must stay before exp to encode
+        Instant issuedAt = now.isBefore(expiresAt) ? now : expiresAt.minusSeconds(1);
+        JwtClaimsSet.Builder claims = JwtClaimsSet.builder()
+                .issuer(ISSUER)
+                .subject(identity.getSubject())
+                .issuedAt(issuedAt)
+                .expiresAt(expiresAt);
+        identity.getInternalClaims().forEach(claims::claim);
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).build();
+        return encoder.encode(JwtEncoderParameters.from(header, claims.build())).getTokenValue();
+    }
+}
@@ -0,0 +1,114 @@
+package com.fittrack.gateway.security;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * JWK source for {@code NimbusReactiveJwtDecoder.withJwkSource}. The key set is fetched as
+ * soon as the bean starts and then refreshed in the background every {@code refreshInterval},
+ * so requests normally find their key in memory. A token signed with an unknown {@code kid}
+ * (key rotation) triggers an immediate refetch, at most once per {@code minRefetchInterval}
+ * so forged kids cannot hammer the JWKS endpoint. Concurrent fetches are shared.
+ */
+public class JwksKeySource implements InitializingBean, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(JwksKeySource.class);
+
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(10);
+
+    private final WebClient webClient;
+    private final String jwkSetUri;
+    private final Duration refreshInterval;
+    private final Duration minRefetchInterval;
+
+    private volatile JWKSet keys;
+    private volatile long lastFetchNanos;
+    private Mono<JWKSet> inflight;
+    private Disposable refresher;
+
+    public JwksKeySource(WebClient webClient, String jwkSetUri, Duration refreshInterval, Duration minRefetchInterval) {
+        this.webClient = webClient;
+        this.jwkSetUri = jwkSetUri;
+        this.refreshInterval = refreshInterval;
+        this.minRefetchInterval = minRefetchInterval;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        refresher = Flux.interval(Duration.ZERO, refreshInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> fetch()
+                        .onErrorResume(ex -> {
+                            logger.warn("JWKS refresh from {} failed: {}", jwkSetUri, ex.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+    }
+
+    public Flux<JWK> get(SignedJWT jwt) {
+        JWKSelector selector = new JWKSelector(JWKMatcher.forJWSHeader(jwt.getHeader()));
+        JWKSet current = keys;
+        List<JWK> matches = current == null ? List.of() : selector.select(current);
+        if (!matches.isEmpty()) {
+            return Flux.fromIterable(matches);
+        }
+        if (current != null && System.nanoTime() - lastFetchNanos < minRefetchInterval.toNanos()) {
+            return Flux.empty();
+        }
+        return fetch().flatMapIterable(selector::select);
+    }
+
+    private synchronized Mono<JWKSet> fetch() {
+        if (inflight != null) {
+            return inflight;
+        }
+        lastFetchNanos = System.nanoTime();
+        // Only one fetch is in flight at a time, so clearing on completion always clears this one
+        inflight = webClient.get()
+                .uri(jwkSetUri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(FETCH_TIMEOUT)
+                .<JWKSet>handle((json, sink) -> {
+                    try {
+                        sink.next(JWKSet.parse(json));
+                    } catch (ParseException e) {
+                        sink.error(new IllegalStateException("Invalid JWKS from " + jwkSetUri, e));
+                    }
+                })
+                .doOnNext(set -> {
+                    keys = set;
+                    logger.debug("Loaded {} JWKS keys from {}", set.getKeys().size(), jwkSetUri);
+                })
+                .doFinally(signal -> clearInflight())
+                .cache();
+        return inflight;
+    }
+
+    private synchronized void clearInflight() {
+        inflight = null;
+    }
+}
@@ -0,0 +1,136 @@
+package com.fittrack.gateway.filters;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.fittrack.gateway.security.InternalIdentityMinter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import reactor.core.publisher.Mono;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class JwtForwardingFilterTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private static final String FORGED = "forged.client.assertion";
+
+    private static final HttpServer upstream = startUpstream();
+    private static final AtomicReference<String> forwardedIdentity = new AtomicReference<>();
+
+    @Autowired
+    private WebTestClient client;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("AUTH0_DOMAIN", () -> "localhost:1");
+        registry.add("AUTH0_AUDIENCE", () -> "fittrack-test");
+        registry.add("INTERNAL_IDENTITY_ENABLED", () -> "true");
+        registry.add("INTERNAL_IDENTITY_SECRET", () -> SECRET);
+        registry.add("spring.cloud.gateway.routes[0].id", () -> "echo");
+        registry.add("spring.cloud.gateway.routes[0].uri", () -> "http://127.0.0.1:" + upstream.getAddress().getPort());
+        registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/api/echo/**,/public/echo/**");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.stop(0);
+    }
+
+    @BeforeEach
+    void reset() {
+        forwardedIdentity.set("unset");
+    }
+
+    @Test
+    void clientAssertionIsReplacedForAuthenticatedRequests() {
+        client.get().uri("/api/echo/me")
+                .headers(headers -> {
+                    headers.setBearerAuth("alice");
+                    headers.set(InternalIdentityMinter.HEADER, FORGED);
+                })
+                .exchange()
+                .expectStatus().isOk();
+
+        assertThat(forwardedIdentity.get()).isNotEqualTo(FORGED);
+        Jwt assertion = serviceDecoder().decode(forwardedIdentity.get());
+        assertThat(assertion.getSubject()).isEqualTo("alice");
+    }
+
+    @Test
+    void clientAssertionIsDroppedForAnonymousRequests() {
+        client.get().uri("/public/echo")
+                .header(InternalIdentityMinter.HEADER, FORGED)
+                .exchange()
+                .expectStatus().isOk();
+
+        assertThat(forwardedIdentity.get()).isNull();
+    }
+
+    // Same configuration as InternalIdentityConfig in the services
+    private static JwtDecoder serviceDecoder() {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder
+                .withSecretKey(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"))
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer("fittrack-gateway"));
+        return decoder;
+    }
+
+    private static HttpServer startUpstream() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", JwtForwardingFilterTest::handle);
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        forwardedIdentity.set(exchange.getRequestHeaders().getFirst(InternalIdentityMinter.HEADER));
+        exchange.sendResponseHeaders(200, -1);
+        exchange.close();
+    }
+
+    @TestConfiguration
+    static class TokenConfig {
+        // Bearer token value is the subject; signature checks are covered by the real decoder
+        @Bean
+        @Primary
+        ReactiveJwtDecoder testJwtDecoder() {
+            return token -> Mono.just(Jwt.withTokenValue(token)
+                    .header("alg", "none")
+                    .subject(token)
+                    .issuedAt(Instant.now())
+                    .expiresAt(Instant.now().plusSeconds(3600))
+                    .build());
+        }
+    }
+}
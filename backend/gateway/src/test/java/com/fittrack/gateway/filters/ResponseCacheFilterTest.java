@@ -0,0 +1,169 @@
+package com.fittrack.gateway.filters;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import reactor.core.publisher.Mono;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ResponseCacheFilterTest {
+
+    private static final HttpServer upstream = startUpstream();
+    private static final AtomicInteger upstreamGets = new AtomicInteger();
+
+    @Autowired
+    private WebTestClient client;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("AUTH0_DOMAIN", () -> "localhost:1");
+        registry.add("AUTH0_AUDIENCE", () -> "fittrack-test");
+        registry.add("gateway.response-cache.route-ttls", () -> "cached=1m");
+        registry.add("spring.cloud.gateway.routes[0].id", () -> "cached");
+        registry.add("spring.cloud.gateway.routes[0].uri", () -> "http://127.0.0.1:" + upstream.getAddress().getPort());
+        registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/api/things/**");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.stop(0);
+    }
+
+    @BeforeEach
+    void resetCount() {
+        upstreamGets.set(0);
+    }
+
+    @Test
+    void secondGetIsServedFromCache() {
+        String first = get("alice", "/api/things/a").expectHeader().valueEquals("X-Cache", "MISS")
+                .expectBody(String.class).returnResult().getResponseBody();
+        String second = get("alice", "/api/things/a").expectHeader().valueEquals("X-Cache", "HIT")
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertThat(second).isEqualTo(first);
+        assertThat(upstreamGets).hasValue(1);
+    }
+
+    @Test
+    void subjectsNeverShareEntries() {
+        String alice = get("alice", "/api/things/b").expectBody(String.class).returnResult().getResponseBody();
+        String bob = get("bob", "/api/things/b").expectHeader().valueEquals("X-Cache", "MISS")
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertThat(bob).isNotEqualTo(alice);
+        assertThat(upstreamGets).hasValue(2);
+    }
+
+    @Test
+    void matchingIfNoneMatchReturnsNotModified() {
+        String etag = get("alice", "/api/things/c").expectHeader().exists(HttpHeaders.ETAG)
+                .returnResult(String.class).getResponseHeaders().getETag();
+
+        client.get().uri("/api/things/c")
+                .headers(headers -> headers.setBearerAuth("alice"))
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("X-Cache", "HIT")
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void writeEvictsTheCallersEntries() {
+        get("alice", "/api/things/d");
+        get("bob", "/api/things/d");
+
+        client.post().uri("/api/things/d")
+                .headers(headers -> headers.setBearerAuth("alice"))
+                .exchange()
+                .expectStatus().isOk();
+
+        get("alice", "/api/things/d").expectHeader().valueEquals("X-Cache", "MISS");
+        get("bob", "/api/things/d").expectHeader().valueEquals("X-Cache", "HIT");
+        assertThat(upstreamGets).hasValue(3);
+    }
+
+    @Test
+    void noStoreFromTheServiceIsNeverCached() {
+        get("alice", "/api/things/placeholder").expectHeader().doesNotExist("X-Cache");
+        get("alice", "/api/things/placeholder").expectHeader().doesNotExist("X-Cache");
+
+        assertThat(upstreamGets).hasValue(2);
+    }
+
+    private WebTestClient.ResponseSpec get(String subject, String path) {
+        return client.get().uri(path)
+                .headers(headers -> headers.setBearerAuth(subject))
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    private static HttpServer startUpstream() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", ResponseCacheFilterTest::handle);
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        int n = "GET".equals(exchange.getRequestMethod()) ? upstreamGets.incrementAndGet() : 0;
+        String user = exchange.getRequestHeaders().getFirst("X-User-ID");
+        byte[] body = ("{\"n\":" + n + ",\"user\":\"" + user + "\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        if (exchange.getRequestURI().getPath().endsWith("/placeholder")) {
+            // What a service sends for a fallback body, like the AI recommendation placeholder
+            exchange.getResponseHeaders().add("Cache-Control", "no-store");
+        } else {
+            // What the services send by default through Spring Security
+            exchange.getResponseHeaders().add("Cache-Control", "no-cache, no-store, max-age=0, must-revalidate");
+            exchange.getResponseHeaders().add("Pragma", "no-cache");
+            exchange.getResponseHeaders().add("Expires", "0");
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    @TestConfiguration
+    static class TokenConfig {
+        // Bearer token value is the subject; signature checks are covered by the real decoder
+        @Bean
+        @Primary
+        ReactiveJwtDecoder testJwtDecoder() {
+            return token -> Mono.just(Jwt.withTokenValue(token)
+                    .header("alg", "none")
+                    .subject(token)
+                    .issuedAt(Instant.now())
+                    .expiresAt(Instant.now().plusSeconds(3600))
+                    .build());
+        }
+    }
+}
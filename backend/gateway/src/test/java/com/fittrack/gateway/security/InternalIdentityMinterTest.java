@@ -0,0 +1,74 @@
+package com.fittrack.gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+class InternalIdentityMinterTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private final InternalIdentityMinter minter = new InternalIdentityMinter(true, SECRET, Duration.ofSeconds(60));
+
+    @Test
+    void serviceDecoderAcceptsMintedAssertion() {
+        Jwt decoded = serviceDecoder(SECRET).decode(minter.assertionFor(identity(Instant.now().plusSeconds(3600))));
+
+        assertThat(decoded.getSubject()).isEqualTo("alice");
+        assertThat(decoded.getClaimAsString(JwtClaimNames.ISS)).isEqualTo(InternalIdentityMinter.ISSUER);
+        assertThat(decoded.getClaimAsString("email")).isEqualTo("alice@example.com");
+        assertThat(decoded.getExpiresAt()).isBefore(Instant.now().plusSeconds(61));
+    }
+
+    @Test
+    void serviceDecoderRejectsAssertionSignedWithAnotherKey() {
+        String assertion = minter.assertionFor(identity(Instant.now().plusSeconds(3600)));
+
+        assertThatThrownBy(() -> serviceDecoder("fedcba9876543210fedcba9876543210").decode(assertion))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void serviceDecoderRejectsExpiredAssertion() {
+        // The assertion never outlives the user's token; past the decoder's 60s clock skew it is expired
+        String assertion = minter.assertionFor(identity(Instant.now().minusSeconds(120)));
+
+        assertThatThrownBy(() -> serviceDecoder(SECRET).decode(assertion))
+                .isInstanceOf(JwtValidationException.class);
+    }
+
+    // Built the same way as InternalIdentityConfig in the services
+    private static JwtDecoder serviceDecoder(String secret) {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder
+                .withSecretKey(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"))
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer("fittrack-gateway"));
+        return decoder;
+    }
+
+    private static GatewayIdentity identity(Instant expiresAt) {
+        return GatewayIdentity.from(Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("alice")
+                .claim("email", "alice@example.com")
+                .issuedAt(expiresAt.minusSeconds(3600))
+                .expiresAt(expiresAt)
+                .build());
+    }
+}
@@ -1,6 +1,7 @@
 package com.fitness.userservice.security;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
@@ -42,6 +43,8 @@ public class SecurityConfig {
     }
 
     @Bean
+    // InternalIdentityConfig provides the decoder when INTERNAL_IDENTITY_ENABLED=true
+    @ConditionalOnProperty(name = "INTERNAL_IDENTITY_ENABLED", havingValue = "false", matchIfMissing = true)
     @ConditionalOnMissingBean(JwtDecoder.class)
     public JwtDecoder jwtDecoder() {
         String domain = env.getProperty("AUTH0_DOMAIN");